@@ -0,0 +1,44 @@
+package com.lightcraft.client.minimap;
+
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/** Per-pixel colour lookup and height shading over one 128x128 frame of columns. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinimapColorBenchmark {
+    private static final int PIXELS = 128 * 128;
+
+    private final long[] columns = new long[PIXELS];
+    private final int[] colors = new int[PIXELS];
+    private final int[] heightDeltas = new int[PIXELS];
+    private final int[] out = new int[PIXELS];
+
+    @Setup
+    public void setup() {
+        MinimapColors.install(SyntheticColumns.table());
+        for (int i = 0; i < PIXELS; i++) {
+            int x = i & 127, z = i >> 7;
+            columns[i] = SyntheticColumns.column(x, z);
+            colors[i] = MinimapColors.columnColor(columns[i], 64);
+            heightDeltas[i] = ChunkColumnCache.topY(columns[i]) - ChunkColumnCache.topY(SyntheticColumns.column(x, z - 1));
+        }
+    }
+
+    @Benchmark
+    public int[] colorLookup() {
+        int[] table = MinimapColors.table();
+        for (int i = 0; i < PIXELS; i++) out[i] = table[MinimapColors.index(columns[i], 64)];
+        return out;
+    }
+
+    @Benchmark
+    public int[] heightShading() {
+        for (int i = 0; i < PIXELS; i++) out[i] = MinimapColors.shade(colors[i], heightDeltas[i]);
+        return out;
+    }
+}
@@ -0,0 +1,61 @@
+package com.lightcraft.client.minimap;
+
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full rebuild versus one-pixel scrolling of the 128x128 minimap raster, per zoom level.
+ * Each level covers four times the area of the one before at the same pixel count.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinimapRasterBenchmark {
+    private static final int SIZE = 128;
+
+    @Param({ "0", "2", "4" })
+    public int level;
+
+    private MinimapRaster raster;
+    private SnapshotSampler sampler;
+    private final DirtyRegion dirty = new DirtyRegion();
+    private int step;
+
+    @Setup
+    public void setup() {
+        MinimapColors.install(SyntheticColumns.table());
+        // Enough chunks to cover the raster around the origin plus the scrolling distance
+        int chunks = ((SIZE / 2 + 16) << level >> 4) + 1;
+        sampler = new SnapshotSampler(SyntheticColumns.snapshot(-chunks, -chunks, 2 * chunks, 2 * chunks), null, 64, level);
+        raster = new MinimapRaster(SIZE);
+        raster.moveTo(0, 0, sampler, null);
+    }
+
+    @Benchmark
+    public int fullRebuild() {
+        raster.invalidate();
+        raster.moveTo(0, 0, sampler, dirty);
+        dirty.clear();
+        return raster.getPixel(0, 0);
+    }
+
+    /** Moves one pixel diagonally per call, back and forth over 16 pixels. */
+    @Benchmark
+    public int incrementalMove() {
+        int offset = (step & 16) == 0 ? step & 15 : 16 - (step & 15);
+        step++;
+        raster.moveTo(offset, offset, sampler, dirty);
+        dirty.clear();
+        return raster.getPixel(0, 0);
+    }
+
+    @Benchmark
+    public int refreshRows() {
+        raster.refreshRows(step++ & (SIZE - 1), SIZE / 20 + 1, sampler, dirty);
+        dirty.clear();
+        return raster.getPixel(0, 0);
+    }
+}
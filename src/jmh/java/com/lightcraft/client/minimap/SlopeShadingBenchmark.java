@@ -0,0 +1,56 @@
+package com.lightcraft.client.minimap;
+
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar versus Vector API slope shading over one megapixel (1024x1024), one row per call as the
+ * sampler does it. Scores are time per megapixel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SlopeShadingBenchmark {
+    private static final int SIZE = 1024;
+    private static final int STRIDE = SIZE + 1;
+
+    private final int[] heights = new int[STRIDE * STRIDE];
+    private final int[] colors = new int[SIZE * SIZE];
+    private final int[] out = new int[SIZE * SIZE];
+    private SlopeShading.Kernel vector;
+
+    @Setup
+    public void setup() {
+        vector = SlopeShading.loadVector();
+        if (vector == null) throw new IllegalStateException("Vector API kernel unavailable");
+        MinimapColors.install(SyntheticColumns.table());
+        // Bordered heightmap: row 0 and column 0 are the north and west neighbours of the frame
+        for (int z = 0; z < STRIDE; z++) {
+            for (int x = 0; x < STRIDE; x++) {
+                heights[z * STRIDE + x] = ChunkColumnCache.topY(SyntheticColumns.column(x - 1, z - 1));
+            }
+        }
+        for (int z = 0; z < SIZE; z++) {
+            for (int x = 0; x < SIZE; x++) {
+                colors[z * SIZE + x] = MinimapColors.table()[MinimapColors.flatIndex(SyntheticColumns.column(x, z))];
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] scalar() {
+        System.arraycopy(colors, 0, out, 0, out.length);
+        for (int z = 0; z < SIZE; z++) SlopeShading.applyScalar(heights, STRIDE, (z + 1) * STRIDE + 1, out, z * SIZE, SIZE);
+        return out;
+    }
+
+    @Benchmark
+    public int[] vector() {
+        System.arraycopy(colors, 0, out, 0, out.length);
+        for (int z = 0; z < SIZE; z++) vector.apply(heights, STRIDE, (z + 1) * STRIDE + 1, out, z * SIZE, SIZE);
+        return out;
+    }
+}
@@ -0,0 +1,49 @@
+package com.lightcraft.client.minimap;
+
+import java.util.Random;
+
+/** Deterministic terrain and palette so the minimap benchmarks run without a game instance. */
+final class SyntheticColumns {
+    static final int STATES = 64;
+
+    private SyntheticColumns() {}
+
+    /** A palette of {@link #STATES} states, shaded the same way the real table is. */
+    static int[] table() {
+        Random random = new Random(1);
+        int[] table = new int[STATES * MinimapColors.SHADES];
+        for (int id = 0; id < STATES; id++) {
+            int abgr = 0xFF000000 | random.nextInt(0x1000000);
+            table[id * MinimapColors.SHADES] = MinimapColors.shade(abgr, -1);
+            table[id * MinimapColors.SHADES + 1] = abgr;
+            table[id * MinimapColors.SHADES + 2] = MinimapColors.shade(abgr, 1);
+        }
+        return table;
+    }
+
+    /** Rolling hills over the given chunk range, every chunk present. */
+    static ColumnSnapshot snapshot(int minChunkX, int minChunkZ, int width, int height) {
+        long[][] grid = new long[width * height][];
+        for (int cz = 0; cz < height; cz++) {
+            for (int cx = 0; cx < width; cx++) {
+                long[] columns = new long[ChunkColumnCache.PACKED_LENGTH];
+                for (int lz = 0; lz < 16; lz++) {
+                    for (int lx = 0; lx < 16; lx++) {
+                        int x = ((minChunkX + cx) << 4) + lx, z = ((minChunkZ + cz) << 4) + lz;
+                        columns[(lz << 4) | lx] = column(x, z);
+                    }
+                }
+                ChunkColumnCache.buildLevels(columns);
+                grid[cz * width + cx] = columns;
+            }
+        }
+        return new ColumnSnapshot(minChunkX, minChunkZ, width, height, grid);
+    }
+
+    static long column(int x, int z) {
+        int y = 64 + (int) (12 * Math.sin(x * 0.05) + 9 * Math.cos(z * 0.07));
+        int state = Math.floorMod(x * 31 + z * 17, STATES);
+        int fluid = y < 60 ? 60 - y : 0;
+        return ChunkColumnCache.pack(y, state, fluid);
+    }
+}
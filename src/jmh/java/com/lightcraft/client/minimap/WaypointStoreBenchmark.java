@@ -0,0 +1,81 @@
+package com.lightcraft.client.minimap;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.lightcraft.config.ModConfig;
+import com.lightcraft.config.WaypointFilterBenchmark;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup and dimension-switch cost with 50k waypoints: the binary store's index read and one
+ * section decode, against decoding a config that still carries the legacy list and one that
+ * has been drained.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaypointStoreBenchmark {
+    private static final int COUNT = 50_000;
+
+    // Same settings as ConfigManager
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private Path dir;
+    private WaypointStore store;
+    private WaypointStore.Section overworld;
+    private String legacyJson;
+    private String drainedJson;
+
+    @Setup
+    public void setup() throws IOException {
+        List<ModConfig.Waypoint> waypoints = WaypointFilterBenchmark.waypoints(COUNT);
+        for (int i = 0; i < waypoints.size(); i++) waypoints.get(i).id = i + 1;
+        dir = Files.createTempDirectory("lightcraft-waypoints");
+        store = new WaypointStore(dir.resolve("world.lcwp"));
+        store.write(waypoints);
+        overworld = store.readIndex().get("minecraft:overworld");
+
+        ModConfig config = new ModConfig();
+        drainedJson = gson.toJson(config);
+        config.waypoints = waypoints;
+        legacyJson = gson.toJson(config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dir.resolve("world.lcwp"));
+        Files.deleteIfExists(dir);
+    }
+
+    /** Joining a world: only the section index is read. */
+    @Benchmark
+    public Map<String, WaypointStore.Section> openIndex() throws IOException {
+        return store.readIndex();
+    }
+
+    /** Entering a dimension: one section (a third of the set) is decoded. */
+    @Benchmark
+    public List<ModConfig.Waypoint> switchDimension() throws IOException {
+        return store.readSection(overworld);
+    }
+
+    /** Client startup before migration: the legacy list is decoded with the rest of the config. */
+    @Benchmark
+    public ModConfig legacyConfigLoad() {
+        return gson.fromJson(legacyJson, ModConfig.class);
+    }
+
+    /** Client startup after migration drained the list. */
+    @Benchmark
+    public ModConfig drainedConfigLoad() {
+        return gson.fromJson(drainedJson, ModConfig.class);
+    }
+}
@@ -0,0 +1,37 @@
+package com.lightcraft.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.*;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/** Gson round trip of a config holding 10k waypoints, with the same settings as ConfigManager. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigSerializationBenchmark {
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private ModConfig config;
+    private String json;
+
+    @Setup
+    public void setup() {
+        config = new ModConfig();
+        config.waypoints = WaypointFilterBenchmark.waypoints(10_000);
+        json = gson.toJson(config);
+    }
+
+    @Benchmark
+    public void serialize() {
+        gson.toJson(config, Writer.nullWriter());
+    }
+
+    @Benchmark
+    public ModConfig deserialize() {
+        return gson.fromJson(json, ModConfig.class);
+    }
+}
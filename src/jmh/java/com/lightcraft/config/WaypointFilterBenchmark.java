@@ -0,0 +1,74 @@
+package com.lightcraft.config;
+
+import com.lightcraft.client.minimap.WaypointTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full waypoint scan with a dimension match plus a distance cut-off, over the serialization
+ * objects (string compare per waypoint) and over the column table (interned dimension ids).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaypointFilterBenchmark {
+    static final String[] DIMENSIONS = { "minecraft:overworld", "minecraft:the_nether", "minecraft:the_end" };
+
+    @Param({ "1000", "10000" })
+    public int count;
+
+    private List<ModConfig.Waypoint> waypoints;
+    // Built at runtime so equals() cannot short-circuit on identity, as with the world's key
+    private String dimension;
+    private WaypointTable table;
+    private int dimensionId;
+
+    @Setup
+    public void setup() {
+        waypoints = waypoints(count);
+        dimension = new String(DIMENSIONS[0]);
+        table = new WaypointTable();
+        for (ModConfig.Waypoint wp : waypoints) table.add(wp);
+        dimensionId = WaypointTable.dimensionId(dimension);
+    }
+
+    @Benchmark
+    public void byDimensionAndDistance(Blackhole bh) {
+        double px = 120.5, pz = -340.5, maxDistSq = 512.0 * 512.0;
+        for (ModConfig.Waypoint wp : waypoints) {
+            if (!wp.enabled || !wp.dimension.equals(dimension)) continue;
+            double dx = wp.x + 0.5 - px, dz = wp.z + 0.5 - pz;
+            if (dx * dx + dz * dz > maxDistSq) continue;
+            bh.consume(wp);
+        }
+    }
+
+    @Benchmark
+    public void tableByDimensionAndDistance(Blackhole bh) {
+        double px = 120.5, pz = -340.5, maxDistSq = 512.0 * 512.0;
+        for (int row = 0, size = table.size(); row < size; row++) {
+            if (!table.isEnabled(row) || table.dimension(row) != dimensionId) continue;
+            double dx = table.x(row) + 0.5 - px, dz = table.z(row) + 0.5 - pz;
+            if (dx * dx + dz * dz > maxDistSq) continue;
+            bh.consume(row);
+        }
+    }
+
+    /** Waypoints spread over +-10k blocks in three dimensions. */
+    public static List<ModConfig.Waypoint> waypoints(int count) {
+        Random random = new Random(7);
+        List<ModConfig.Waypoint> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new ModConfig.Waypoint("Waypoint " + i, random.nextInt(20000) - 10000, 40 + random.nextInt(100),
+                random.nextInt(20000) - 10000, 0xFF000000 | random.nextInt(0x1000000), DIMENSIONS[i % DIMENSIONS.length]));
+        }
+        return list;
+    }
+}
@@ -1,15 +1,30 @@
 package com.lightcraft.client;
 
 import com.lightcraft.client.gui.*;
+import com.lightcraft.client.minimap.ChunkColumnCache;
+import com.lightcraft.client.minimap.MapTileStore;
+import com.lightcraft.client.minimap.MinimapColors;
 import com.lightcraft.client.minimap.WaypointManager;
+import com.lightcraft.client.minimap.WorldKeys;
+import com.lightcraft.client.perf.FrameTimeRecorder;
+import com.lightcraft.client.perf.Spans;
+import com.lightcraft.client.render.WaypointLabelRenderer;
+import com.lightcraft.client.render.WaypointWorldRenderer;
 import com.lightcraft.config.ConfigManager;
 import com.lightcraft.config.ModConfig;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.option.KeyBinding;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.resource.ResourceType;
 import net.minecraft.client.util.InputUtil;
 import org.lwjgl.glfw.GLFW;
 import org.slf4j.Logger;
@@ -24,8 +39,13 @@ public class LightCraftClient implements ClientModInitializer {
     private ConfigManager configManager;
     private HudRenderer hudRenderer;
     private WaypointManager waypointManager;
+    private WaypointWorldRenderer waypointRenderer;
+    private WaypointLabelRenderer waypointLabelRenderer;
+    private ChunkColumnCache columnCache;
+    private MapTileStore tileStore;
+    private final FrameTimeRecorder frameTimes = new FrameTimeRecorder(1024);
     
-    private KeyBinding toggleHudKey, toggleMinimapKey, openConfigKey, addWaypointKey;
+    private KeyBinding toggleHudKey, toggleMinimapKey, openConfigKey, addWaypointKey, worldMapKey, debugPageKey;
     private final boolean[] keyStates = new boolean[512];
     private boolean wasDead = false;
     
@@ -35,12 +55,16 @@ public class LightCraftClient implements ClientModInitializer {
         LOGGER.info("Initializing LightCraft...");
         
         try {
-            configManager = new ConfigManager();
+            configManager = new ConfigManager(MinecraftClient.getInstance());
             config = configManager.loadConfig();
-            waypointManager = new WaypointManager(configManager);
+            waypointManager = new WaypointManager(config, configManager, FabricLoader.getInstance().getGameDir().resolve(MOD_ID).resolve("waypoints"), MinecraftClient.getInstance());
+            waypointRenderer = new WaypointWorldRenderer(config, waypointManager);
+            waypointLabelRenderer = new WaypointLabelRenderer(config, waypointManager);
+            columnCache = new ChunkColumnCache();
+            tileStore = new MapTileStore(FabricLoader.getInstance().getGameDir().resolve(MOD_ID).resolve("map"));
             
             // Safe HUD Init
-            hudRenderer = new HudRenderer(config, waypointManager);
+            hudRenderer = new HudRenderer(config, waypointManager, columnCache, tileStore, frameTimes);
             
             registerKeybindings();
             
@@ -49,22 +73,62 @@ public class LightCraftClient implements ClientModInitializer {
                     MinecraftClient client = MinecraftClient.getInstance();
                     if (client.player != null && !client.options.hudHidden) {
                         float delta = tickCounter.getTickDelta(false);
+                        renderWaypointLabels(drawContext);
                         hudRenderer.render(drawContext, delta);
                     }
                 } catch (Exception e) {}
             });
             
             ClientTickEvents.END_CLIENT_TICK.register(this::onClientTick);
+            ClientChunkEvents.CHUNK_LOAD.register(columnCache::onChunkLoad);
+            ClientChunkEvents.CHUNK_UNLOAD.register(columnCache::onChunkUnload);
+            registerMapStore();
+            registerWaypointStore();
+            ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new MinimapColors.ReloadListener());
         } catch (Exception e) {
             LOGGER.error("CRITICAL: Failed to init LightCraft. Mod disabled.", e);
         }
     }
     
+    private void renderWaypointLabels(DrawContext context) {
+        long spanStart = Spans.begin(Spans.WAYPOINT_LABELS);
+        try {
+            waypointLabelRenderer.render(context);
+        } catch (Exception e) {
+        } finally {
+            Spans.end(Spans.WAYPOINT_LABELS, spanStart);
+        }
+    }
+    
+    private void registerMapStore() {
+        // Every chunk the cache learns about is also persisted to the explored map
+        columnCache.setListener(new ChunkColumnCache.Listener() {
+            @Override
+            public void onWorldChanged(ClientWorld world) {
+                tileStore.open(WorldKeys.worldKey(MinecraftClient.getInstance()), WorldKeys.dimensionKey(world));
+            }
+
+            @Override
+            public void onColumnsChanged(int chunkX, int chunkZ, long[] columns) {
+                tileStore.queueChunk(chunkX, chunkZ, columns);
+            }
+        });
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> tileStore.close(false));
+    }
+    
+    // Only the joined world's waypoints are loaded
+    private void registerWaypointStore() {
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> waypointManager.open(WorldKeys.worldKey(client)));
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> waypointManager.close());
+    }
+    
     private void registerKeybindings() {
         toggleHudKey = registerSafe("lightcraft.key.toggle_hud", GLFW.GLFW_KEY_H);
         toggleMinimapKey = registerSafe("lightcraft.key.toggle_minimap", GLFW.GLFW_KEY_M);
         openConfigKey = registerSafe("lightcraft.key.open_config", GLFW.GLFW_KEY_K);
         addWaypointKey = registerSafe("lightcraft.key.add_waypoint", GLFW.GLFW_KEY_B);
+        worldMapKey = registerSafe("lightcraft.key.world_map", GLFW.GLFW_KEY_N);
+        debugPageKey = registerSafe("lightcraft.key.debug_page", GLFW.GLFW_KEY_J);
     }
 
     private KeyBinding registerSafe(String name, int code) {
@@ -72,6 +136,7 @@ public class LightCraftClient implements ClientModInitializer {
     }
 
     private void onClientTick(MinecraftClient client) {
+        waypointManager.onWorld(client.world);
         if (client.player == null) return;
         
         if (config.deathWaypoint) {
@@ -88,6 +153,8 @@ public class LightCraftClient implements ClientModInitializer {
         if (checkManualKey(handle, GLFW.GLFW_KEY_M)) { config.minimapEnabled = !config.minimapEnabled; configManager.saveConfig(config); }
         if (checkManualKey(handle, GLFW.GLFW_KEY_K)) client.execute(() -> client.setScreen(new ConfigScreen(config, configManager, waypointManager, hudRenderer)));
         if (checkManualKey(handle, GLFW.GLFW_KEY_B)) client.execute(() -> client.setScreen(new WaypointScreen(config, configManager, waypointManager, client.player.getBlockPos(), true)));
+        if (checkManualKey(handle, GLFW.GLFW_KEY_J) && client.currentScreen == null) { config.debugPageEnabled = !config.debugPageEnabled; configManager.saveConfig(config); }
+        if (checkManualKey(handle, GLFW.GLFW_KEY_N) && client.currentScreen == null) client.execute(() -> client.setScreen(new WorldMapScreen(tileStore)));
         
         if (hudRenderer != null) hudRenderer.tick();
     }
@@ -102,4 +169,11 @@ public class LightCraftClient implements ClientModInitializer {
     public static LightCraftClient getInstance() { return instance; }
     public ModConfig getConfig() { return config; }
     public ConfigManager getConfigManager() { return configManager; }
+    public HudRenderer getHudRenderer() { return hudRenderer; }
+    public ChunkColumnCache getChunkColumnCache() { return columnCache; }
+    public MapTileStore getMapTileStore() { return tileStore; }
+    public FrameTimeRecorder getFrameTimes() { return frameTimes; }
+    public WaypointManager getWaypointManager() { return waypointManager; }
+    public WaypointWorldRenderer getWaypointRenderer() { return waypointRenderer; }
+    public WaypointLabelRenderer getWaypointLabelRenderer() { return waypointLabelRenderer; }
 }
@@ -0,0 +1,135 @@
+package com.lightcraft.client.gui;
+
+import com.lightcraft.client.LightCraftClient;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.Identifier;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DrawContext entry points used by the HUD, bound once when the class loads.
+ * Each handle is looked up by exact signature: first under its known names (yarn, then intermediary),
+ * then as the only public method with that signature. Anything that cannot be bound unambiguously
+ * gets a fallback, so callers can always use invokeExact without null checks.
+ */
+final class DrawContextBindings {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final List<String> report = new ArrayList<>();
+
+    static final MethodHandle FILL = bind("fill", MethodType.methodType(void.class, int.class, int.class, int.class, int.class, int.class),
+            null, "fill", "method_25294");
+    static final MethodHandle DRAW_TEXT = bind("drawText", MethodType.methodType(void.class, TextRenderer.class, String.class, int.class, int.class, int.class, boolean.class),
+            null, "drawText", "method_51433", "method_25303");
+    static final MethodHandle DRAW_TEXTURE = bind("drawTexture", MethodType.methodType(void.class, Identifier.class, int.class, int.class, int.class, int.class, int.class, int.class),
+            null, "drawTexture", "method_25302");
+    static final MethodHandle DRAW_TEXTURE_REGION = bind("drawTextureRegion", MethodType.methodType(void.class, Identifier.class, int.class, int.class, float.class, float.class, int.class, int.class, int.class, int.class),
+            null, "drawTexture", "method_25290");
+    static final MethodHandle DRAW_BORDER = bind("drawBorder", MethodType.methodType(void.class, int.class, int.class, int.class, int.class, int.class),
+            fallback("borderFallback", MethodType.methodType(void.class, DrawContext.class, int.class, int.class, int.class, int.class, int.class)),
+            "drawBorder", "method_49601", "method_51448");
+    static final MethodHandle ENABLE_SCISSOR = bind("enableScissor", MethodType.methodType(void.class, int.class, int.class, int.class, int.class),
+            null, "enableScissor", "method_44379", "method_25298");
+    static final MethodHandle DISABLE_SCISSOR = bind("disableScissor", MethodType.methodType(void.class),
+            null, "disableScissor", "method_44380", "method_25299");
+    static final MethodHandle FLUSH = bind("draw", MethodType.methodType(void.class),
+            null, "draw", "method_51452");
+    static final MethodHandle GET_MATRICES = bindMatrices();
+
+    private DrawContextBindings() {}
+
+    /** Logs what every entry point was bound to; called once during client init. */
+    static void logReport() {
+        for (String line : report) LightCraftClient.LOGGER.info("HUD binding: {}", line);
+    }
+
+    /**
+     * @param type the call-site signature without the receiver; a non-void target return value is dropped
+     * @param fallback used when nothing can be bound, or null for a no-op
+     */
+    private static MethodHandle bind(String label, MethodType type, MethodHandle fallback, String... names) {
+        MethodHandle site = null;
+        String how = null;
+        for (String name : names) {
+            for (Class<?> ret : new Class<?>[]{type.returnType(), int.class}) {
+                try {
+                    site = LOOKUP.findVirtual(DrawContext.class, name, type.changeReturnType(ret));
+                    how = name + type.changeReturnType(ret);
+                    break;
+                } catch (ReflectiveOperationException e) {}
+            }
+            if (site != null) break;
+        }
+
+        if (site == null) {
+            // Unknown name: accept a signature match only when it is the sole candidate
+            Method match = null;
+            int matches = 0;
+            for (Method m : DrawContext.class.getMethods()) {
+                if (Modifier.isStatic(m.getModifiers()) || !m.getDeclaringClass().equals(DrawContext.class)) continue;
+                if (!MethodType.methodType(m.getReturnType(), m.getParameterTypes()).changeReturnType(void.class).equals(type.changeReturnType(void.class))) continue;
+                match = m;
+                matches++;
+            }
+            if (matches == 1) {
+                try {
+                    site = LOOKUP.unreflect(match);
+                    how = match.getName() + " (sole signature match)";
+                } catch (IllegalAccessException e) {}
+            } else if (matches > 1) {
+                how = "ambiguous, " + matches + " signature matches";
+            }
+        }
+
+        MethodType exact = type.insertParameterTypes(0, DrawContext.class);
+        if (site == null) {
+            report.add(label + " -> fallback (" + (how != null ? how : "not found") + ")");
+            return fallback != null ? fallback : MethodHandles.empty(exact);
+        }
+        report.add(label + " -> " + how);
+        return site.asType(exact);
+    }
+
+    private static MethodHandle bindMatrices() {
+        MethodType exact = MethodType.methodType(MatrixStack.class, DrawContext.class);
+        for (String name : new String[]{"getMatrices", "method_51448", "method_51446"}) {
+            try {
+                MethodHandle h = LOOKUP.findVirtual(DrawContext.class, name, MethodType.methodType(MatrixStack.class));
+                report.add("getMatrices -> " + name);
+                return h;
+            } catch (ReflectiveOperationException e) {}
+        }
+        for (Field f : DrawContext.class.getDeclaredFields()) {
+            if (f.getType() != MatrixStack.class || Modifier.isStatic(f.getModifiers())) continue;
+            try {
+                f.setAccessible(true);
+                report.add("getMatrices -> field " + f.getName());
+                return LOOKUP.unreflectGetter(f).asType(exact);
+            } catch (Exception e) {}
+        }
+        report.add("getMatrices -> fallback (not found)");
+        return MethodHandles.dropArguments(MethodHandles.constant(MatrixStack.class, null), 0, DrawContext.class);
+    }
+
+    private static MethodHandle fallback(String name, MethodType type) {
+        try {
+            return LOOKUP.findStatic(DrawContextBindings.class, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void borderFallback(DrawContext context, int x, int y, int w, int h, int color) {
+        HudRenderer.fillSafe(context, x, y, x + w, y + 1, color);
+        HudRenderer.fillSafe(context, x, y + h - 1, x + w, y + h, color);
+        HudRenderer.fillSafe(context, x, y + 1, x + 1, y + h - 1, color);
+        HudRenderer.fillSafe(context, x + w - 1, y + 1, x + w, y + h - 1, color);
+    }
+}
@@ -1,11 +1,13 @@
 package com.lightcraft.client.gui;
 
+import com.lightcraft.client.hud.HudElement;
 import com.lightcraft.config.ConfigManager;
 import com.lightcraft.config.ModConfig;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.text.Text;
+import java.util.List;
 
 public class HudEditorScreen extends Screen {
     private final ModConfig config;
@@ -13,7 +15,7 @@ public class HudEditorScreen extends Screen {
     private final HudRenderer renderer;
     
     private boolean isDragging = false;
-    private String draggedElement = null;
+    private HudElement draggedElement = null;
     private int dragOffsetX = 0;
     private int dragOffsetY = 0;
 
@@ -51,38 +53,25 @@ public class HudEditorScreen extends Screen {
     @Override
     public boolean mouseClicked(double mouseX, double mouseY, int button) {
         if (button == 0) { // Left Click
-            int mx = (int)mouseX;
-            int my = (int)mouseY;
             float scale = config.hudScale;
             if (scale <= 0) scale = 1.0f; // Safety
             
             // Unscale mouse coordinates to match config coordinates
-            int hudX = (int)(mx / scale);
-            int hudY = (int)(my / scale);
+            int hudX = (int)(mouseX / scale);
+            int hudY = (int)(mouseY / scale);
+            int hudW = (int)(width / scale);
+            int hudH = (int)(height / scale);
 
-            // FPS Box (approx 60x16)
-            if (isInside(hudX, hudY, config.fpsX, config.fpsY, 60, 16)) {
-                startDrag("FPS", hudX, hudY, config.fpsX, config.fpsY);
-                return true;
-            }
-            
-            // Coords Box (approx 150x40)
-            if (isInside(hudX, hudY, config.coordsX, config.coordsY, 150, 40)) {
-                startDrag("COORDS", hudX, hudY, config.coordsX, config.coordsY);
-                return true;
-            }
-            
-            // Minimap Box
-            int mmX = config.minimapX;
-            // Handle negative X (right alignment)
-            if (mmX < 0) {
-                 int scaledWidth = (int)(width / scale);
-                 mmX = scaledWidth + config.minimapX;
-            }
-            
-            if (isInside(hudX, hudY, mmX, config.minimapY, config.minimapSize, config.minimapSize)) {
-                startDrag("MINIMAP", hudX, hudY, mmX, config.minimapY);
-                return true;
+            // Topmost (last drawn) element wins
+            List<HudElement> elements = renderer.getRegistry().getElements();
+            for (int i = elements.size() - 1; i >= 0; i--) {
+                HudElement e = elements.get(i);
+                if (!e.isEnabled()) continue;
+                int ex = e.getX(hudW), ey = e.getY(hudH);
+                if (isInside(hudX, hudY, ex, ey, e.getWidth(), e.getHeight())) {
+                    startDrag(e, hudX, hudY, ex, ey);
+                    return true;
+                }
             }
         }
         return super.mouseClicked(mouseX, mouseY, button);
@@ -92,7 +81,7 @@ public class HudEditorScreen extends Screen {
         return mx >= x && mx <= x + w && my >= y && my <= y + h;
     }
 
-    private void startDrag(String elem, int mx, int my, int elemX, int elemY) {
+    private void startDrag(HudElement elem, int mx, int my, int elemX, int elemY) {
         isDragging = true;
         draggedElement = elem;
         dragOffsetX = mx - elemX;
@@ -117,20 +106,7 @@ public class HudEditorScreen extends Screen {
                 newY = (newY / 10) * 10;
             }
 
-            switch(draggedElement) {
-                case "FPS" -> { config.fpsX = newX; config.fpsY = newY; }
-                case "COORDS" -> { config.coordsX = newX; config.coordsY = newY; }
-                case "MINIMAP" -> {
-                    // Logic for right-side alignment
-                    int scaledW = (int)(width / scale);
-                    if (newX > scaledW / 2) {
-                        config.minimapX = newX - scaledW; // Store as negative offset
-                    } else {
-                        config.minimapX = newX;
-                    }
-                    config.minimapY = newY;
-                }
-            }
+            draggedElement.setPosition(newX, newY, (int)(width / scale), (int)(height / scale));
             return true;
         }
         return super.mouseDragged(mouseX, mouseY, button, deltaX, deltaY);
@@ -0,0 +1,102 @@
+package com.lightcraft.client.gui;
+
+import com.lightcraft.client.LightCraftClient;
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gl.Framebuffer;
+import net.minecraft.client.gl.SimpleFramebuffer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.BufferRenderer;
+import net.minecraft.client.render.GameRenderer;
+import net.minecraft.client.render.Tessellator;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.client.util.math.MatrixStack;
+import org.joml.Matrix4f;
+import java.util.function.Consumer;
+
+/**
+ * Offscreen copy of the slowly changing HUD elements.
+ * The elements are re-rendered into a window-sized framebuffer only when their content key or the
+ * window size changes; every other frame the layer is composited with a single textured quad.
+ * The framebuffer holds premultiplied colour (the GUI layers blend alpha with ONE, ONE_MINUS_SRC_ALPHA),
+ * so it is composited with ONE, ONE_MINUS_SRC_ALPHA as well.
+ */
+public class HudLayer {
+    private SimpleFramebuffer framebuffer;
+    private long contentKey;
+    private boolean valid = false;
+    private boolean failed = false;
+
+    /**
+     * Draws the layer, first re-rendering it through {@code painter} if {@code key} differs from the last render.
+     * Returns false if no offscreen buffer is available; the caller should then draw directly.
+     */
+    public boolean render(DrawContext context, long key, Consumer<DrawContext> painter) {
+        if (failed) return false;
+        MinecraftClient client = MinecraftClient.getInstance();
+        Framebuffer main = client.getFramebuffer();
+        try {
+            if (framebuffer == null) {
+                framebuffer = new SimpleFramebuffer(main.textureWidth, main.textureHeight, true, MinecraftClient.IS_SYSTEM_MAC);
+                valid = false;
+            } else if (framebuffer.textureWidth != main.textureWidth || framebuffer.textureHeight != main.textureHeight) {
+                framebuffer.resize(main.textureWidth, main.textureHeight, MinecraftClient.IS_SYSTEM_MAC);
+                valid = false;
+            }
+
+            if (!valid || key != contentKey) {
+                // Anything already queued on the outer context belongs to the main framebuffer
+                HudRenderer.flushSafe(context);
+                framebuffer.setClearColor(0, 0, 0, 0);
+                framebuffer.clear(MinecraftClient.IS_SYSTEM_MAC);
+                framebuffer.beginWrite(true);
+                DrawContext layerContext = new DrawContext(client, client.getBufferBuilders().getEntityVertexConsumers());
+                painter.accept(layerContext);
+                HudRenderer.flushSafe(layerContext);
+                main.beginWrite(true);
+                contentKey = key;
+                valid = true;
+            }
+        } catch (Exception e) {
+            LightCraftClient.LOGGER.error("HUD layer unavailable, drawing directly", e);
+            failed = true;
+            close();
+            main.beginWrite(true);
+            return false;
+        }
+
+        HudRenderer.flushSafe(context);
+        composite(context, client.getWindow().getScaledWidth(), client.getWindow().getScaledHeight());
+        return true;
+    }
+
+    public void invalidate() { valid = false; }
+
+    public void close() {
+        if (framebuffer != null) framebuffer.delete();
+        framebuffer = null;
+        valid = false;
+    }
+
+    private void composite(DrawContext context, int w, int h) {
+        MatrixStack matrices = HudRenderer.getMatricesSafe(context);
+        Matrix4f matrix = matrices != null ? matrices.peek().getPositionMatrix() : new Matrix4f();
+
+        RenderSystem.setShaderTexture(0, framebuffer.getColorAttachment());
+        RenderSystem.setShader(GameRenderer::getPositionTexProgram);
+        RenderSystem.enableBlend();
+        RenderSystem.blendFunc(GlStateManager.SrcFactor.ONE, GlStateManager.DstFactor.ONE_MINUS_SRC_ALPHA);
+        // Framebuffer rows run bottom-up
+        BufferBuilder buffer = Tessellator.getInstance().begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
+        buffer.vertex(matrix, 0, 0, 0).texture(0, 1);
+        buffer.vertex(matrix, 0, h, 0).texture(0, 0);
+        buffer.vertex(matrix, w, h, 0).texture(1, 0);
+        buffer.vertex(matrix, w, 0, 0).texture(1, 1);
+        BufferRenderer.drawWithGlobalProgram(buffer.end());
+        RenderSystem.defaultBlendFunc();
+        RenderSystem.disableBlend();
+    }
+}
@@ -1,38 +1,64 @@
 package com.lightcraft.client.gui;
 
 import com.lightcraft.client.hud.*;
+import com.lightcraft.client.minimap.ChunkColumnCache;
+import com.lightcraft.client.minimap.MapTileStore;
 import com.lightcraft.client.minimap.WaypointManager;
+import com.lightcraft.client.perf.FrameTimeRecorder;
+import com.lightcraft.client.perf.Spans;
 import com.lightcraft.config.ModConfig;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.font.TextRenderer;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.util.Identifier;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.util.List;
+import java.util.function.Consumer;
 
 public class HudRenderer {
     private final ModConfig config;
-    private final FpsHud fpsHud;
-    private final CoordsHud coordsHud;
-    private final MinimapHud minimapHud;
+    private final HudElementRegistry registry = new HudElementRegistry();
+    private final HudScheduler scheduler = new HudScheduler(registry);
     private boolean editMode = false;
+    private final HudLayer layer = new HudLayer();
+    private final Consumer<DrawContext> layerPainter = this::paintLayer;
+    private float lastTickDelta;
     
-    private static Method matrixMethod, drawTextMethod, fillMethod, borderMethod, scissorOnMethod, scissorOffMethod, drawTextureMethod;
-    private static Field matrixField;
 
-    public HudRenderer(ModConfig config, WaypointManager waypointManager) {
+    public HudRenderer(ModConfig config, WaypointManager waypointManager, ChunkColumnCache columnCache, MapTileStore tileStore, FrameTimeRecorder frameTimes) {
         this.config = config;
-        this.fpsHud = new FpsHud(config);
-        this.coordsHud = new CoordsHud(config);
-        this.minimapHud = new MinimapHud(config, waypointManager);
+        registry.register(new FpsHud(config, frameTimes));
+        registry.register(new CoordsHud(config));
+        registry.register(new MinimapHud(config, waypointManager, columnCache, tileStore));
+        registry.register(new FrameGraphHud(config, frameTimes));
+        registry.register(new DebugHud(config));
+        DrawContextBindings.logReport();
     }
     
     public void render(DrawContext context, float tickDelta) {
         if (!config.hudEnabled) return;
+        long spanStart = Spans.begin(Spans.HUD);
+        try {
+            renderElements(context, tickDelta);
+        } finally {
+            Spans.end(Spans.HUD, spanStart);
+        }
+    }
+
+    private void renderElements(DrawContext context, float tickDelta) {
         MinecraftClient client = MinecraftClient.getInstance();
         int width = client.getWindow().getScaledWidth();
         int height = client.getWindow().getScaledHeight();
+        lastTickDelta = tickDelta;
+
+        try {
+            scheduler.runFrame(config.hudUpdateBudgetMicros * 1000L);
+        } catch (Throwable t) {}
+
+        // Retained elements change a few times a second at most; keep them in the cached layer
+        try {
+            if (!config.hudRetainedLayer || !layer.render(context, layerKey(width, height), layerPainter)) paintLayer(context);
+        } catch (Throwable t) {}
 
         MatrixStack matrices = getMatricesSafe(context);
         if (matrices != null) {
@@ -44,129 +70,98 @@ public class HudRenderer {
         int sH = (int)(height / config.hudScale);
         
         try {
-            if (config.fpsEnabled) fpsHud.render(context, sW, sH);
-            if (config.coordsEnabled) coordsHud.render(context, sW, sH);
-            if (config.minimapEnabled) minimapHud.render(context, sW, sH, tickDelta);
+            List<HudElement> elements = registry.getElements();
+            for (int i = 0; i < elements.size(); i++) {
+                HudElement e = elements.get(i);
+                if (e.isEnabled() && !e.isRetained()) e.render(context, sW, sH, tickDelta);
+            }
             
             if (editMode) {
-                 drawBorderSafe(context, config.fpsX-2, config.fpsY-2, 60, 16, 0xFFFFFFFF);
-                 drawBorderSafe(context, config.coordsX-2, config.coordsY-2, 150, 40, 0xFFFFFFFF);
+                for (int i = 0; i < elements.size(); i++) {
+                    HudElement e = elements.get(i);
+                    if (e.isEnabled()) drawBorderSafe(context, e.getX(sW) - 2, e.getY(sH) - 2, e.getWidth(), e.getHeight(), 0xFFFFFFFF);
+                }
             }
         } catch (Throwable t) {}
         
         if (matrices != null) matrices.pop();
     }
-    
-    // --- Safe Reflection Methods ---
 
-    public static void drawTextureSafe(DrawContext context, Identifier texture, int x, int y, int u, int v, int width, int height) {
+    private void paintLayer(DrawContext context) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        int sW = (int)(client.getWindow().getScaledWidth() / config.hudScale);
+        int sH = (int)(client.getWindow().getScaledHeight() / config.hudScale);
+        MatrixStack matrices = getMatricesSafe(context);
+        if (matrices != null) {
+            matrices.push();
+            matrices.scale(config.hudScale, config.hudScale, 1.0f);
+        }
         try {
-            if (drawTextureMethod == null) {
-                for (Method m : DrawContext.class.getMethods()) {
-                    if (m.getParameterCount() == 7 && m.getParameterTypes()[0] == Identifier.class && m.getParameterTypes()[1] == int.class) {
-                        drawTextureMethod = m; break;
-                    }
-                }
+            List<HudElement> elements = registry.getElements();
+            for (int i = 0; i < elements.size(); i++) {
+                HudElement e = elements.get(i);
+                if (e.isEnabled() && e.isRetained()) e.render(context, sW, sH, lastTickDelta);
             }
-            if (drawTextureMethod != null) drawTextureMethod.invoke(context, texture, x, y, u, v, width, height);
-        } catch (Exception e) {}
+        } finally {
+            if (matrices != null) matrices.pop();
+        }
+    }
+
+    // Everything the retained layer's pixels depend on
+    private long layerKey(int width, int height) {
+        long key = Float.floatToIntBits(config.hudScale);
+        key = key * 31 + width;
+        key = key * 31 + height;
+        List<HudElement> elements = registry.getElements();
+        for (int i = 0; i < elements.size(); i++) {
+            HudElement e = elements.get(i);
+            if (e.isRetained()) key = key * 31 + (e.isEnabled() ? e.contentKey() : i);
+        }
+        return key;
+    }
+
+    /** Other code can add elements here; they are drawn, scheduled and editable like the built-in ones. */
+    public HudElementRegistry getRegistry() { return registry; }
+
+    // --- Safe draw methods, bound once in DrawContextBindings ---
+
+    public static void drawTextureSafe(DrawContext context, Identifier texture, int x, int y, int u, int v, int width, int height) {
+        try { DrawContextBindings.DRAW_TEXTURE.invokeExact(context, texture, x, y, u, v, width, height); } catch (Throwable t) {}
+    }
+
+    public static void drawTextureRegionSafe(DrawContext context, Identifier texture, int x, int y, float u, float v, int width, int height, int texWidth, int texHeight) {
+        try { DrawContextBindings.DRAW_TEXTURE_REGION.invokeExact(context, texture, x, y, u, v, width, height, texWidth, texHeight); } catch (Throwable t) {}
     }
 
     public static void drawTextSafe(DrawContext context, TextRenderer tr, String text, int x, int y, int color, boolean shadow) {
-        try {
-            if (drawTextMethod == null) {
-                for (Method m : DrawContext.class.getMethods()) {
-                    if (m.getName().equals("drawText") || m.getName().equals("method_25303") || 
-                       (m.getParameterCount() == 6 && m.getParameterTypes()[1] == String.class)) {
-                        drawTextMethod = m; break;
-                    }
-                }
-            }
-            if (drawTextMethod != null) drawTextMethod.invoke(context, tr, text, x, y, color, shadow);
-        } catch (Exception e) {}
+        try { DrawContextBindings.DRAW_TEXT.invokeExact(context, tr, text, x, y, color, shadow); } catch (Throwable t) {}
     }
 
     public static void fillSafe(DrawContext context, int x1, int y1, int x2, int y2, int color) {
-        try {
-            if (fillMethod == null) {
-                for (Method m : DrawContext.class.getMethods()) {
-                    if (m.getName().equals("fill") || m.getName().equals("method_25294") ||
-                       (m.getParameterCount() == 5 && m.getParameterTypes()[0] == int.class)) {
-                        fillMethod = m; break;
-                    }
-                }
-            }
-            if (fillMethod != null) fillMethod.invoke(context, x1, y1, x2, y2, color);
-        } catch (Exception e) {}
+        try { DrawContextBindings.FILL.invokeExact(context, x1, y1, x2, y2, color); } catch (Throwable t) {}
     }
 
     public static void drawBorderSafe(DrawContext context, int x, int y, int w, int h, int color) {
-        try {
-            if (borderMethod == null) {
-                for (Method m : DrawContext.class.getMethods()) {
-                    if (m.getName().equals("drawBorder") || m.getName().equals("method_51448") ||
-                        (m.getParameterCount() == 5 && m.getName().toLowerCase().contains("border"))) {
-                        borderMethod = m; break;
-                    }
-                }
-            }
-            if (borderMethod != null) borderMethod.invoke(context, x, y, w, h, color);
-            else {
-                fillSafe(context, x, y, x + w, y + 1, color);
-                fillSafe(context, x, y + h - 1, x + w, y + h, color);
-                fillSafe(context, x, y + 1, x + 1, y + h - 1, color);
-                fillSafe(context, x + w - 1, y + 1, x + w, y + h - 1, color);
-            }
-        } catch (Exception e) {}
+        try { DrawContextBindings.DRAW_BORDER.invokeExact(context, x, y, w, h, color); } catch (Throwable t) {}
     }
 
     public static void enableScissorSafe(DrawContext context, int x1, int y1, int x2, int y2) {
-        try {
-            if (scissorOnMethod == null) {
-                for (Method m : DrawContext.class.getMethods()) {
-                    if (m.getName().equals("enableScissor") || m.getName().equals("method_25298") ||
-                       (m.getParameterCount() == 4 && m.getName().toLowerCase().contains("scissor"))) {
-                        scissorOnMethod = m; break;
-                    }
-                }
-            }
-            if (scissorOnMethod != null) scissorOnMethod.invoke(context, x1, y1, x2, y2);
-        } catch (Exception e) {}
+        try { DrawContextBindings.ENABLE_SCISSOR.invokeExact(context, x1, y1, x2, y2); } catch (Throwable t) {}
     }
 
     public static void disableScissorSafe(DrawContext context) {
-        try {
-            if (scissorOffMethod == null) {
-                for (Method m : DrawContext.class.getMethods()) {
-                    if (m.getName().equals("disableScissor") || m.getName().equals("method_25299") ||
-                       (m.getParameterCount() == 0 && m.getName().toLowerCase().contains("scissor"))) {
-                        scissorOffMethod = m; break;
-                    }
-                }
-            }
-            if (scissorOffMethod != null) scissorOffMethod.invoke(context);
-        } catch (Exception e) {}
+        try { DrawContextBindings.DISABLE_SCISSOR.invokeExact(context); } catch (Throwable t) {}
     }
 
-    public static MatrixStack getMatricesSafe(DrawContext context) {
-        try {
-            if (matrixMethod != null) return (MatrixStack) matrixMethod.invoke(context);
-            if (matrixField != null) return (MatrixStack) matrixField.get(context);
+    /** Submits everything the context has batched so far. */
+    public static void flushSafe(DrawContext context) {
+        try { DrawContextBindings.FLUSH.invokeExact(context); } catch (Throwable t) {}
+    }
 
-            for (Method m : DrawContext.class.getMethods()) {
-                if ((m.getName().equals("getMatrices") || m.getName().equals("method_51446")) && m.getParameterCount() == 0) {
-                    matrixMethod = m; return (MatrixStack) m.invoke(context);
-                }
-            }
-            for (Field f : DrawContext.class.getDeclaredFields()) {
-                if (f.getType() == MatrixStack.class) {
-                    f.setAccessible(true); matrixField = f; return (MatrixStack) f.get(context);
-                }
-            }
-        } catch (Exception e) {}
-        return null;
+    public static MatrixStack getMatricesSafe(DrawContext context) {
+        try { return (MatrixStack) DrawContextBindings.GET_MATRICES.invokeExact(context); } catch (Throwable t) { return null; }
     }
     
-    public void tick() { fpsHud.tick(); }
+    public void tick() { scheduler.onTick(); }
     public void setEditMode(boolean mode) { this.editMode = mode; }
 }
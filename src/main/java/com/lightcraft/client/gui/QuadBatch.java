@@ -0,0 +1,42 @@
+package com.lightcraft.client.gui;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.BufferRenderer;
+import net.minecraft.client.render.BuiltBuffer;
+import net.minecraft.client.render.GameRenderer;
+import net.minecraft.client.render.Tessellator;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import org.joml.Matrix4f;
+
+/** Collects coloured HUD quads and submits them as one draw call instead of one fill per quad. */
+public class QuadBatch {
+    private BufferBuilder buffer;
+    private Matrix4f matrix;
+
+    public void begin(Matrix4f matrix) {
+        this.matrix = matrix;
+        this.buffer = Tessellator.getInstance().begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_COLOR);
+    }
+
+    /** Same corners and winding as DrawContext.fill. */
+    public void fill(float x1, float y1, float x2, float y2, int argb) {
+        buffer.vertex(matrix, x1, y1, 0).color(argb);
+        buffer.vertex(matrix, x1, y2, 0).color(argb);
+        buffer.vertex(matrix, x2, y2, 0).color(argb);
+        buffer.vertex(matrix, x2, y1, 0).color(argb);
+    }
+
+    public void draw() {
+        if (buffer == null) return;
+        BuiltBuffer built = buffer.endNullable();
+        buffer = null;
+        if (built == null) return;
+        RenderSystem.enableBlend();
+        RenderSystem.defaultBlendFunc();
+        RenderSystem.setShader(GameRenderer::getPositionColorProgram);
+        BufferRenderer.drawWithGlobalProgram(built);
+        RenderSystem.disableBlend();
+    }
+}
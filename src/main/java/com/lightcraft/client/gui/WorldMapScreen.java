@@ -0,0 +1,136 @@
+package com.lightcraft.client.gui;
+
+import com.lightcraft.client.minimap.MapTilePyramid;
+import com.lightcraft.client.minimap.MapTileStore;
+import com.lightcraft.client.render.MapTileTextures;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
+
+public class WorldMapScreen extends Screen {
+    private static final double MIN_SCALE = 1.0 / 64;
+    private static final double MAX_SCALE = 8.0;
+    private static final int TILE = MapTilePyramid.TILE_SIZE;
+    
+    private final MapTilePyramid pyramid;
+    private final MapTileTextures textures;
+    
+    // Block at the centre of the screen and screen pixels per block
+    private double centerX, centerZ;
+    private double scale = 1.0;
+    
+    // Tiles on screen; only rebuilt when the tile range or level changes
+    private LongOpenHashSet visible = new LongOpenHashSet();
+    private int visibleLevel = -1, visibleMinTX, visibleMinTZ, visibleMaxTX, visibleMaxTZ;
+    
+    // Cursor readout, rebuilt only when the block under the cursor changes
+    private String cursorText = "";
+    private int cursorTextX = Integer.MIN_VALUE, cursorTextZ;
+    
+    public WorldMapScreen(MapTileStore store) {
+        super(Text.of("World Map"));
+        store.requestFlush();
+        this.pyramid = new MapTilePyramid(store.currentSession());
+        this.textures = new MapTileTextures(pyramid);
+        PlayerEntity player = MinecraftClient.getInstance().player;
+        if (player != null) { centerX = player.getX(); centerZ = player.getZ(); }
+    }
+    
+    @Override
+    public void render(DrawContext c, int mx, int my, float d) {
+        HudRenderer.fillSafe(c, 0, 0, width, height, 0xFF101010);
+        textures.uploadPending();
+        
+        // Pick the pyramid level whose pixels are closest to (but not coarser than) screen pixels
+        int level = Math.max(0, Math.min(MapTilePyramid.MAX_LEVEL, (int) Math.floor(Math.log(1.0 / scale) / Math.log(2))));
+        int tileBlocks = TILE << level;
+        double left = centerX - width / 2.0 / scale;
+        double top = centerZ - height / 2.0 / scale;
+        int minTX = Math.floorDiv((int) Math.floor(left), tileBlocks);
+        int minTZ = Math.floorDiv((int) Math.floor(top), tileBlocks);
+        int maxTX = Math.floorDiv((int) Math.floor(left + width / scale), tileBlocks);
+        int maxTZ = Math.floorDiv((int) Math.floor(top + height / scale), tileBlocks);
+        
+        // Only tiles intersecting the viewport are ever touched
+        if (level != visibleLevel || minTX != visibleMinTX || minTZ != visibleMinTZ || maxTX != visibleMaxTX || maxTZ != visibleMaxTZ) {
+            // A fresh set, since the tile builder thread may still be reading the old one
+            LongOpenHashSet keys = new LongOpenHashSet();
+            for (int tz = minTZ; tz <= maxTZ; tz++) {
+                for (int tx = minTX; tx <= maxTX; tx++) {
+                    if (pyramid.mayContainData(level, tx, tz)) keys.add(MapTilePyramid.key(level, tx, tz));
+                }
+            }
+            visible = keys;
+            visibleLevel = level;
+            visibleMinTX = minTX; visibleMinTZ = minTZ; visibleMaxTX = maxTX; visibleMaxTZ = maxTZ;
+            textures.setVisible(keys);
+        }
+        
+        MatrixStack matrices = HudRenderer.getMatricesSafe(c);
+        if (matrices != null) {
+            float tileScale = (float) (scale * (1 << level));
+            for (int tz = minTZ; tz <= maxTZ; tz++) {
+                for (int tx = minTX; tx <= maxTX; tx++) {
+                    if (!visible.contains(MapTilePyramid.key(level, tx, tz))) continue;
+                    Identifier id = textures.get(level, tx, tz);
+                    if (id == null) continue;
+                    matrices.push();
+                    matrices.translate((float) (((double) tx * tileBlocks - left) * scale), (float) (((double) tz * tileBlocks - top) * scale), 0);
+                    matrices.scale(tileScale, tileScale, 1.0f);
+                    HudRenderer.drawTextureRegionSafe(c, id, 0, 0, 0, 0, TILE, TILE, TILE, TILE);
+                    matrices.pop();
+                }
+            }
+        }
+        
+        PlayerEntity player = MinecraftClient.getInstance().player;
+        if (player != null) {
+            int px = (int) ((player.getX() - left) * scale);
+            int pz = (int) ((player.getZ() - top) * scale);
+            HudRenderer.fillSafe(c, px - 2, pz - 2, px + 2, pz + 2, 0xFF00FF00);
+        }
+        
+        int cursorX = (int) Math.floor(left + mx / scale);
+        int cursorZ = (int) Math.floor(top + my / scale);
+        if (cursorX != cursorTextX || cursorZ != cursorTextZ) {
+            cursorTextX = cursorX;
+            cursorTextZ = cursorZ;
+            cursorText = "X: " + cursorX + "  Z: " + cursorZ;
+        }
+        HudRenderer.drawTextSafe(c, textRenderer, cursorText, 10, height - 20, 0xFFFFFFFF, true);
+        
+        super.render(c, mx, my, d);
+    }
+    
+    @Override
+    public boolean mouseDragged(double mouseX, double mouseY, int button, double deltaX, double deltaY) {
+        if (button == 0) {
+            centerX -= deltaX / scale;
+            centerZ -= deltaY / scale;
+            return true;
+        }
+        return super.mouseDragged(mouseX, mouseY, button, deltaX, deltaY);
+    }
+    
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double horizontalAmount, double verticalAmount) {
+        // Zoom around the cursor so the block under it stays put
+        double worldX = centerX + (mouseX - width / 2.0) / scale;
+        double worldZ = centerZ + (mouseY - height / 2.0) / scale;
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * (verticalAmount > 0 ? 1.25 : 0.8)));
+        centerX = worldX - (mouseX - width / 2.0) / scale;
+        centerZ = worldZ - (mouseY - height / 2.0) / scale;
+        return true;
+    }
+    
+    @Override
+    public void removed() { textures.close(); }
+    
+    @Override
+    public void close() { MinecraftClient.getInstance().setScreen(null); }
+}
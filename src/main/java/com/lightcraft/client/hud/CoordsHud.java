@@ -6,11 +6,52 @@ import net.minecraft.client.gui.DrawContext;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.math.MathHelper;
 
-public class CoordsHud {
+public class CoordsHud implements HudElement {
     private final ModConfig config;
+    private static final String[] FACING = { "Facing: South", "Facing: West", "Facing: North", "Facing: East" };
+    
+    // Text is rebuilt only when a coordinate changes at the displayed precision
+    private final StringBuilder sb = new StringBuilder(48);
+    private String coords = "";
+    private long lastX = Long.MIN_VALUE, lastY, lastZ;
+    private boolean lastNegX, lastNegY, lastNegZ;
+    
     public CoordsHud(ModConfig config) { this.config = config; }
     
-    public void render(DrawContext context, int w, int h) {
+    @Override public String getId() { return "coords"; }
+    @Override public boolean isEnabled() { return config.coordsEnabled; }
+    @Override public int getX(int screenWidth) { return config.coordsX; }
+    @Override public int getY(int screenHeight) { return config.coordsY; }
+    @Override public int getWidth() { return 150; }
+    @Override public int getHeight() { return 40; }
+    @Override public void setPosition(int x, int y, int screenWidth, int screenHeight) { config.coordsX = x; config.coordsY = y; }
+    
+    // Player positions only change once per tick
+    @Override public Cadence getCadence() { return Cadence.TICK; }
+    
+    @Override
+    public void update() {
+        PlayerEntity player = MinecraftClient.getInstance().player;
+        if (player != null) updateCoords(player.getX(), player.getY(), player.getZ());
+    }
+    
+    @Override public boolean isRetained() { return true; }
+    
+    /** Changes whenever the rendered output would: position to one decimal, facing and layout. */
+    @Override
+    public long contentKey() {
+        PlayerEntity player = MinecraftClient.getInstance().player;
+        if (player == null) return 0;
+        long key = lastX * 2 + (lastNegX ? 1 : 0);
+        key = key * 31 + lastY * 2 + (lastNegY ? 1 : 0);
+        key = key * 31 + lastZ * 2 + (lastNegZ ? 1 : 0);
+        key = key * 31 + (config.showDirection ? getDirection(player.getYaw()) : 4);
+        key = key * 31 + config.coordsX;
+        return key * 31 + config.coordsY;
+    }
+    
+    @Override
+    public void render(DrawContext context, int w, int h, float tickDelta) {
         PlayerEntity player = MinecraftClient.getInstance().player;
         if (player == null) return;
         
@@ -18,20 +59,36 @@ public class CoordsHud {
         int y = config.coordsY;
         HudRenderer.fillSafe(context, x - 2, y - 2, x + 150, y + (config.showDirection ? 24 : 12), 0x80000000);
         
-        String coords = String.format("XYZ: %.1f / %.1f / %.1f", player.getX(), player.getY(), player.getZ());
         HudRenderer.drawTextSafe(context, MinecraftClient.getInstance().textRenderer, coords, x, y, 0xFFFFFFFF, true);
         
         if (config.showDirection) {
-            String dir = getDirection(player.getYaw());
-            HudRenderer.drawTextSafe(context, MinecraftClient.getInstance().textRenderer, "Facing: " + dir, x, y + 11, 0xFFAAAAAA, true);
+            HudRenderer.drawTextSafe(context, MinecraftClient.getInstance().textRenderer, FACING[getDirection(player.getYaw())], x, y + 11, 0xFFAAAAAA, true);
         }
     }
     
-    private String getDirection(float yaw) {
+    // Package-private for the allocation test
+    void updateCoords(double px, double py, double pz) {
+        long tx = HudText.tenths(px), ty = HudText.tenths(py), tz = HudText.tenths(pz);
+        boolean nx = px < 0, ny = py < 0, nz = pz < 0;
+        if (tx == lastX && ty == lastY && tz == lastZ && nx == lastNegX && ny == lastNegY && nz == lastNegZ) return;
+        lastX = tx; lastY = ty; lastZ = tz;
+        lastNegX = nx; lastNegY = ny; lastNegZ = nz;
+        sb.setLength(0);
+        sb.append("XYZ: ");
+        HudText.appendFixed1(sb, px).append(" / ");
+        HudText.appendFixed1(sb, py).append(" / ");
+        HudText.appendFixed1(sb, pz);
+        coords = sb.toString();
+    }
+    
+    String coordsText() { return coords; }
+    
+    // Index into FACING
+    private int getDirection(float yaw) {
         yaw = MathHelper.wrapDegrees(yaw);
-        if (yaw >= -45 && yaw < 45) return "South";
-        if (yaw >= 45 && yaw < 135) return "West";
-        if (yaw >= -135 && yaw < -45) return "East";
-        return "North";
+        if (yaw >= -45 && yaw < 45) return 0;
+        if (yaw >= 45 && yaw < 135) return 1;
+        if (yaw >= -135 && yaw < -45) return 3;
+        return 2;
     }
 }
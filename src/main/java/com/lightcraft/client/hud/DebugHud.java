@@ -0,0 +1,69 @@
+package com.lightcraft.client.hud;
+
+import com.lightcraft.client.gui.HudRenderer;
+import com.lightcraft.client.perf.Spans;
+import com.lightcraft.config.ModConfig;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+
+/** Debug page listing the rolling per-subsystem span counters. */
+public class DebugHud implements HudElement {
+    private static final String TITLE = "LightCraft (last second)";
+
+    private final ModConfig config;
+    private final String[] lines = new String[Spans.count()];
+    private final StringBuilder sb = new StringBuilder(64);
+    private int width = 0;
+    private long key = 0;
+
+    public DebugHud(ModConfig config) {
+        this.config = config;
+        for (int i = 0; i < lines.length; i++) lines[i] = "";
+    }
+
+    @Override public String getId() { return "debug"; }
+    @Override public boolean isEnabled() { return config.debugPageEnabled; }
+    @Override public int getX(int screenWidth) { return config.debugX; }
+    @Override public int getY(int screenHeight) { return config.debugY; }
+    @Override public int getWidth() { return Math.max(100, width + 4); }
+    @Override public int getHeight() { return 11 * (lines.length + 1) + 4; }
+    @Override public void setPosition(int x, int y, int screenWidth, int screenHeight) { config.debugX = x; config.debugY = y; }
+
+    @Override public Cadence getCadence() { return Cadence.INTERVAL; }
+    @Override public long getIntervalMs() { return 1000; }
+
+    @Override
+    public void update() {
+        Spans.roll();
+        MinecraftClient client = MinecraftClient.getInstance();
+        int w = client.textRenderer.getWidth(TITLE);
+        for (int i = 0; i < lines.length; i++) {
+            int calls = Spans.calls(i);
+            sb.setLength(0);
+            sb.append(Spans.name(i)).append(": ").append(calls).append("x  avg ")
+              .append(calls > 0 ? Spans.totalNanos(i) / calls / 1000 : 0).append("us  max ")
+              .append(Spans.maxNanos(i) / 1000).append("us  total ");
+            HudText.appendFixed1(sb, Spans.totalNanos(i) / 1e6).append("ms");
+            if (!lines[i].contentEquals(sb)) lines[i] = sb.toString();
+            w = Math.max(w, client.textRenderer.getWidth(lines[i]));
+        }
+        width = w;
+        long k = 0;
+        for (String line : lines) k = k * 31 + line.hashCode();
+        key = k;
+    }
+
+    @Override public boolean isRetained() { return true; }
+    @Override public long contentKey() { return (key * 31 + config.debugX) * 31 + config.debugY; }
+
+    @Override
+    public void render(DrawContext context, int w, int h, float tickDelta) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        int x = config.debugX, y = config.debugY;
+        HudRenderer.fillSafe(context, x - 2, y - 2, x + getWidth() - 2, y + getHeight() - 2, 0x80000000);
+        HudRenderer.drawTextSafe(context, client.textRenderer, TITLE, x, y, 0xFFFFFF55, true);
+        for (int i = 0; i < lines.length; i++) {
+            HudRenderer.drawTextSafe(context, client.textRenderer, lines[i], x, y + 11 * (i + 1), 0xFFFFFFFF, true);
+        }
+    }
+}
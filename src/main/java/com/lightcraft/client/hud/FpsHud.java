@@ -1,28 +1,90 @@
 package com.lightcraft.client.hud;
 import com.lightcraft.config.ModConfig;
 import com.lightcraft.client.gui.HudRenderer;
+import com.lightcraft.client.perf.FrameTimeRecorder;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 
-public class FpsHud {
+public class FpsHud implements HudElement {
+    // Stats cover this much recent history, so a stutter stays visible for a few refreshes
+    private static final long STATS_WINDOW_NANOS = 5_000_000_000L;
+    
     private final ModConfig config;
+    private final FrameTimeRecorder frameTimes;
+    private final FrameTimeRecorder.Stats stats = new FrameTimeRecorder.Stats();
     private int currentFps = 0;
-    private long lastUpdate = 0;
+    private String text = "0 FPS";
+    private String statsText = "";
+    private int statsWidth = 0;
+    private final StringBuilder sb = new StringBuilder(64);
+    
+    public FpsHud(ModConfig config, FrameTimeRecorder frameTimes) {
+        this.config = config;
+        this.frameTimes = frameTimes;
+    }
     
-    public FpsHud(ModConfig config) { this.config = config; }
+    @Override public String getId() { return "fps"; }
+    @Override public boolean isEnabled() { return config.fpsEnabled; }
+    @Override public int getX(int screenWidth) { return config.fpsX; }
+    @Override public int getY(int screenHeight) { return config.fpsY; }
+    @Override public int getWidth() { return config.fpsShowFrameStats ? Math.max(60, statsWidth + 4) : 60; }
+    @Override public int getHeight() { return config.fpsShowFrameStats ? 27 : 16; }
+    @Override public void setPosition(int x, int y, int screenWidth, int screenHeight) { config.fpsX = x; config.fpsY = y; }
+    
+    @Override public Cadence getCadence() { return Cadence.INTERVAL; }
+    @Override public long getIntervalMs() { return config.fpsUpdateInterval; }
+    
+    // Every frame is recorded; only the text is refreshed at the interval
+    @Override
+    public void update() {
+        frameTimes.computeStats(STATS_WINDOW_NANOS, stats);
+        int fps = stats.frames > 0 ? Math.round(stats.avgFps) : MinecraftClient.getInstance().getCurrentFps();
+        if (updateText(fps, stats)) statsWidth = MinecraftClient.getInstance().textRenderer.getWidth(statsText);
+    }
     
-    public void tick() {
-        long now = System.currentTimeMillis();
-        if (now - lastUpdate >= config.fpsUpdateInterval) {
-            currentFps = MinecraftClient.getInstance().getCurrentFps();
-            lastUpdate = now;
+    /** Rebuilds the text from fps and stats; true when the stats line changed and must be measured again. */
+    boolean updateText(int fps, FrameTimeRecorder.Stats stats) {
+        if (fps != currentFps) {
+            currentFps = fps;
+            sb.setLength(0);
+            text = sb.append(fps).append(" FPS").toString();
         }
+        if (config.fpsShowFrameStats) {
+            sb.setLength(0);
+            sb.append("avg ");
+            HudText.appendFixed1(sb, stats.avgNanos / 1e6).append("ms  1% low ").append(Math.round(stats.onePercentLowFps));
+            sb.append("  p99 ");
+            HudText.appendFixed1(sb, stats.p99Nanos / 1e6).append("ms  max ");
+            HudText.appendFixed1(sb, stats.worstNanos / 1e6).append("ms");
+            if (!statsText.contentEquals(sb)) {
+                statsText = sb.toString();
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    String text() { return text; }
+    String statsText() { return statsText; }
+    
+    @Override public boolean isRetained() { return true; }
+    
+    /** Changes whenever the rendered output would. */
+    @Override
+    public long contentKey() {
+        long key = ((long) currentFps * 31 + config.fpsX) * 31 + config.fpsY;
+        return config.fpsShowFrameStats ? key * 31 + statsText.hashCode() : key;
     }
     
-    public void render(DrawContext context, int w, int h) {
+    @Override
+    public void render(DrawContext context, int w, int h, float tickDelta) {
         int color = currentFps >= 60 ? 0xFF55FF55 : (currentFps >= 30 ? 0xFFFFFF55 : 0xFFFF5555);
-        HudRenderer.fillSafe(context, config.fpsX - 2, config.fpsY - 2, config.fpsX + 50, config.fpsY + 12, 0x80000000);
+        int right = config.fpsShowFrameStats ? Math.max(config.fpsX + 50, config.fpsX + statsWidth + 2) : config.fpsX + 50;
+        HudRenderer.fillSafe(context, config.fpsX - 2, config.fpsY - 2, right, config.fpsY + (config.fpsShowFrameStats ? 23 : 12), 0x80000000);
         HudRenderer.drawTextSafe(context, MinecraftClient.getInstance().textRenderer, 
-            currentFps + " FPS", config.fpsX, config.fpsY, color, true);
+            text, config.fpsX, config.fpsY, color, true);
+        if (config.fpsShowFrameStats) {
+            HudRenderer.drawTextSafe(context, MinecraftClient.getInstance().textRenderer, statsText, config.fpsX, config.fpsY + 11, 0xFFAAAAAA, true);
+        }
     }
 }
@@ -0,0 +1,59 @@
+package com.lightcraft.client.hud;
+
+import com.lightcraft.client.gui.HudRenderer;
+import com.lightcraft.client.gui.QuadBatch;
+import com.lightcraft.client.perf.FrameTimeRecorder;
+import com.lightcraft.config.ModConfig;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.util.math.MatrixStack;
+
+/** Scrolling bar graph of the most recent frame times, drawn as one batched mesh. */
+public class FrameGraphHud implements HudElement {
+    private static final int BARS = 120;
+    private static final int HEIGHT = 40;
+    // Pixels per millisecond; 33.3 ms fills the graph
+    private static final float PX_PER_MS = HEIGHT / 33.3f;
+
+    private final ModConfig config;
+    private final FrameTimeRecorder frameTimes;
+    private final QuadBatch batch = new QuadBatch();
+
+    public FrameGraphHud(ModConfig config, FrameTimeRecorder frameTimes) {
+        this.config = config;
+        this.frameTimes = frameTimes;
+    }
+
+    @Override public String getId() { return "frame_graph"; }
+    @Override public boolean isEnabled() { return config.frameGraphEnabled; }
+    @Override public int getX(int screenWidth) { return config.frameGraphX; }
+    @Override public int getY(int screenHeight) { return config.frameGraphY; }
+    @Override public int getWidth() { return BARS; }
+    @Override public int getHeight() { return HEIGHT; }
+    @Override public void setPosition(int x, int y, int screenWidth, int screenHeight) { config.frameGraphX = x; config.frameGraphY = y; }
+    @Override public Cadence getCadence() { return Cadence.FRAME; }
+
+    @Override
+    public void render(DrawContext context, int w, int h, float tickDelta) {
+        MatrixStack matrices = HudRenderer.getMatricesSafe(context);
+        if (matrices == null) return;
+        HudRenderer.flushSafe(context);
+
+        int x = config.frameGraphX, bottom = config.frameGraphY + HEIGHT;
+        batch.begin(matrices.peek().getPositionMatrix());
+        batch.fill(x, config.frameGraphY, x + BARS, bottom, 0x80000000);
+        // Newest frame on the right
+        for (int i = 0; i < BARS; i++) {
+            long nanos = frameTimes.get(i);
+            if (nanos == 0) break;
+            float ms = nanos / 1e6f;
+            float barH = Math.min(HEIGHT, ms * PX_PER_MS);
+            int color = ms <= 16.7f ? 0xFF55FF55 : (ms <= 33.3f ? 0xFFFFFF55 : 0xFFFF5555);
+            float bx = x + BARS - 1 - i;
+            batch.fill(bx, bottom - barH, bx + 1, bottom, color);
+        }
+        // 60 and 30 FPS guides
+        batch.fill(x, bottom - 16.7f * PX_PER_MS, x + BARS, bottom - 16.7f * PX_PER_MS + 0.5f, 0x80FFFFFF);
+        batch.fill(x, bottom - 33.3f * PX_PER_MS, x + BARS, bottom - 33.3f * PX_PER_MS + 0.5f, 0x80FFFFFF);
+        batch.draw();
+    }
+}
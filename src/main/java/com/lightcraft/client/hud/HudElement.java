@@ -0,0 +1,36 @@
+package com.lightcraft.client.hud;
+
+import net.minecraft.client.gui.DrawContext;
+
+/**
+ * A HUD element as seen by the renderer, the update scheduler and the layout editor.
+ * Coordinates are in HUD space, i.e. scaled screen pixels divided by {@code hudScale}.
+ */
+public interface HudElement {
+    /** How often {@link #update()} wants to run. */
+    enum Cadence { FRAME, TICK, INTERVAL }
+
+    String getId();
+    boolean isEnabled();
+
+    int getX(int screenWidth);
+    int getY(int screenHeight);
+    int getWidth();
+    int getHeight();
+    /** Moves the element's top-left corner, e.g. when dragged in the editor. */
+    void setPosition(int x, int y, int screenWidth, int screenHeight);
+
+    Cadence getCadence();
+    /** Period for {@link Cadence#INTERVAL} elements. */
+    default long getIntervalMs() { return 0; }
+    /** State refresh; FRAME updates always run, TICK and INTERVAL ones share the per-frame budget. */
+    default void update() {}
+    /** Cheap per-frame step of a budgeted element, e.g. uploading what its last update produced; never deferred. */
+    default void frameUpdate() {}
+
+    /** Retained elements are drawn into the cached HUD layer and must describe their output in {@link #contentKey()}. */
+    default boolean isRetained() { return false; }
+    default long contentKey() { return 0; }
+
+    void render(DrawContext context, int screenWidth, int screenHeight, float tickDelta);
+}
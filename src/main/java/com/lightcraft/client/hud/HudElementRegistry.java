@@ -0,0 +1,29 @@
+package com.lightcraft.client.hud;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Ordered set of HUD elements; later elements draw on top and win hit tests in the editor. */
+public class HudElementRegistry {
+    private final List<HudElement> elements = new ArrayList<>();
+    private final List<HudElement> view = Collections.unmodifiableList(elements);
+
+    public void register(HudElement element) {
+        if (get(element.getId()) != null) throw new IllegalArgumentException("Duplicate HUD element id: " + element.getId());
+        elements.add(element);
+    }
+
+    public boolean unregister(String id) {
+        return elements.removeIf(e -> e.getId().equals(id));
+    }
+
+    public HudElement get(String id) {
+        for (int i = 0; i < elements.size(); i++) {
+            if (elements.get(i).getId().equals(id)) return elements.get(i);
+        }
+        return null;
+    }
+
+    public List<HudElement> getElements() { return view; }
+}
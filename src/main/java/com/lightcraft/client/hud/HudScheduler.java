@@ -0,0 +1,74 @@
+package com.lightcraft.client.hud;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs element updates at their declared cadence.
+ * FRAME updates and every element's {@link HudElement#frameUpdate} always run; due TICK and INTERVAL
+ * updates run round-robin until the frame budget is spent, and whatever is left waits for the next
+ * frame. At least one is run per frame so nothing starves.
+ */
+public class HudScheduler {
+    private static class State {
+        boolean tickDue = true;
+        long nextDue = 0;
+    }
+
+    private final HudElementRegistry registry;
+    private final Map<HudElement, State> states = new IdentityHashMap<>();
+    private int cursor = 0;
+
+    public HudScheduler(HudElementRegistry registry) { this.registry = registry; }
+
+    public void onTick() {
+        List<HudElement> elements = registry.getElements();
+        for (int i = 0; i < elements.size(); i++) {
+            HudElement e = elements.get(i);
+            if (e.getCadence() == HudElement.Cadence.TICK) state(e).tickDue = true;
+        }
+    }
+
+    public void runFrame(long budgetNanos) {
+        long start = System.nanoTime();
+        List<HudElement> elements = registry.getElements();
+        int n = elements.size();
+        if (n == 0) return;
+
+        for (int i = 0; i < n; i++) {
+            HudElement e = elements.get(i);
+            if (!e.isEnabled()) continue;
+            e.frameUpdate();
+            if (e.getCadence() == HudElement.Cadence.FRAME) e.update();
+        }
+
+        int ran = 0;
+        for (int i = 0; i < n; i++) {
+            int index = (cursor + i) % n;
+            HudElement e = elements.get(index);
+            if (!e.isEnabled() || e.getCadence() == HudElement.Cadence.FRAME) continue;
+            State s = state(e);
+            boolean due = e.getCadence() == HudElement.Cadence.TICK ? s.tickDue : start >= s.nextDue;
+            if (!due) continue;
+            if (ran > 0 && System.nanoTime() - start > budgetNanos) {
+                cursor = index;
+                return;
+            }
+            s.tickDue = false;
+            s.nextDue = start + e.getIntervalMs() * 1_000_000L;
+            e.update();
+            ran++;
+        }
+        cursor = (cursor + 1) % n;
+    }
+
+    private State state(HudElement e) {
+        State s = states.get(e);
+        if (s == null) {
+            s = new State();
+            states.put(e, s);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,22 @@
+package com.lightcraft.client.hud;
+
+/**
+ * Number formatting for HUD lines without Formatter or boxing.
+ * Values are rounded like {@code %.1f} (half up, away from zero) so callers can compare
+ * {@link #tenths} to decide whether the displayed text changed at all.
+ */
+public final class HudText {
+    private HudText() {}
+
+    /** |v| in tenths rounded half up; the sign is handled separately by {@link #appendFixed1}. */
+    public static long tenths(double v) {
+        return (long) (Math.abs(v) * 10 + 0.5);
+    }
+
+    /** Appends v with one decimal, matching String.format("%.1f", v) including "-0.0". */
+    public static StringBuilder appendFixed1(StringBuilder sb, double v) {
+        long t = tenths(v);
+        if (v < 0) sb.append('-');
+        return sb.append(t / 10).append('.').append((char) ('0' + t % 10));
+    }
+}
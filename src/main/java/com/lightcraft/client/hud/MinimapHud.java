@@ -1,28 +1,35 @@
 package com.lightcraft.client.hud;
 
+import com.lightcraft.client.minimap.ChunkColumnCache;
+import com.lightcraft.client.minimap.ColumnSnapshot;
+import com.lightcraft.client.minimap.EntityRadar;
+import com.lightcraft.client.minimap.MapTileStore;
+import com.lightcraft.client.minimap.MinimapRaster;
+import com.lightcraft.client.minimap.MinimapRasterizer;
 import com.lightcraft.client.minimap.WaypointManager;
+import com.lightcraft.client.perf.Spans;
 import com.lightcraft.client.gui.HudRenderer;
+import com.lightcraft.client.gui.QuadBatch;
 import com.lightcraft.config.ModConfig;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.MapColor;
-import net.minecraft.block.Blocks;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.texture.NativeImage;
 import net.minecraft.client.texture.NativeImageBackedTexture;
 import net.minecraft.client.util.math.MatrixStack;
-import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.RotationAxis;
-import net.minecraft.world.Heightmap;
+import net.minecraft.world.LightType;
 import net.minecraft.world.World;
 import java.lang.reflect.Constructor;
 
-public class MinimapHud {
+public class MinimapHud implements HudElement {
     private final ModConfig config;
     private final WaypointManager waypointManager;
+    private final ChunkColumnCache columnCache;
+    private final MapTileStore tileStore;
     
     private NativeImage mapImage;
     private NativeImageBackedTexture mapTexture;
@@ -30,12 +37,46 @@ public class MinimapHud {
     private final int MAP_SIZE = 128;
     private boolean initialized = false;
     
+    // Rows re-sampled per tick so the whole map is refreshed about once a second
+    private static final int REFRESH_ROWS_PER_TICK = 128 / 20 + 1;
+    // Slice start meaning "draw the surface"
+    private static final int SURFACE = Integer.MIN_VALUE;
+    // Slices start on multiples of this at or below head height, so only every few blocks of climbing re-slices
+    private static final int SLICE_STEP = 4;
+    
+    private final MinimapRasterizer rasterizer = new MinimapRasterizer(MAP_SIZE);
+    private final MinimapRaster.DirtySink dirtySink = this::uploadRegion;
+    
+    private final EntityRadar radar = new EntityRadar();
+    private final QuadBatch radarBatch = new QuadBatch();
+    
+    // Texture upload accounting, in bytes
+    private long uploadBytesTotal = 0;
+    private int uploadBytesThisFrame = 0;
+    private int uploadBytesLastFrame = 0;
+    private long statsWindowStart = 0;
+    private long statsWindowBytes = 0;
+    private int statsWindowFrames = 0;
+    private int uploadBytesPerFrameAvg = 0;
+    // Rebuilt only when the once-a-second average changes
+    private String uploadStatsText = "Upload: 0 B/frame";
+    
+    private World lastWorld;
     private int lastPlayerX = Integer.MAX_VALUE;
     private int lastPlayerZ = Integer.MAX_VALUE;
+    private int lastLevel = 0;
+    private int lastSliceY = SURFACE;
+    private boolean lastSlopeShading = false;
+    private final LongArrayList slicedChunks = new LongArrayList();
+    private int lastRefreshAge = -1;
+    private int refreshRow = 0;
+    private int lastRadarAge = -1;
     
-    public MinimapHud(ModConfig config, WaypointManager wm) {
+    public MinimapHud(ModConfig config, WaypointManager wm, ChunkColumnCache columnCache, MapTileStore tileStore) {
         this.config = config;
         this.waypointManager = wm;
+        this.columnCache = columnCache;
+        this.tileStore = tileStore;
         
         try {
             this.mapImage = new NativeImage(MAP_SIZE, MAP_SIZE, false);
@@ -68,6 +109,43 @@ public class MinimapHud {
         }
     }
     
+    @Override public String getId() { return "minimap"; }
+    @Override public boolean isEnabled() { return config.minimapEnabled; }
+    @Override public int getX(int screenWidth) { return config.minimapX < 0 ? screenWidth + config.minimapX : config.minimapX; }
+    @Override public int getY(int screenHeight) { return config.minimapY; }
+    @Override public int getWidth() { return config.minimapSize; }
+    @Override public int getHeight() { return config.minimapSize; }
+    
+    // Elements in the right half are stored as negative offsets so they stay right-aligned
+    @Override
+    public void setPosition(int x, int y, int screenWidth, int screenHeight) {
+        config.minimapX = x > screenWidth / 2 ? x - screenWidth : x;
+        config.minimapY = y;
+    }
+    
+    // Snapshots and raster jobs follow the player's position, which only changes once per tick;
+    // under load the scheduler may push them to a later frame
+    @Override public Cadence getCadence() { return Cadence.TICK; }
+    
+    @Override
+    public void update() {
+        if (!initialized) return;
+        MinecraftClient client = MinecraftClient.getInstance();
+        PlayerEntity player = client.player;
+        if (player == null || client.world == null) return;
+        
+        updateTexture(client.world, (int) player.getX(), (int) player.getY(), (int) player.getZ(), player.age);
+        
+        // One entity snapshot per tick; frames only interpolate it
+        if (config.minimapShowEntities && player.age != lastRadarAge) {
+            long spanStart = Spans.begin(Spans.ENTITY_RADAR);
+            radar.snapshot(client.world, player);
+            lastRadarAge = player.age;
+            Spans.end(Spans.ENTITY_RADAR, spanStart);
+        }
+    }
+    
+    @Override
     public void render(DrawContext context, int w, int h, float tickDelta) {
         if (!initialized) return;
 
@@ -77,16 +155,8 @@ public class MinimapHud {
         
         int size = config.minimapSize;
         int halfSize = size / 2;
-        int x = config.minimapX < 0 ? w + config.minimapX : config.minimapX;
-        int y = config.minimapY;
-        
-        int px = (int) player.getX();
-        int pz = (int) player.getZ();
-        
-        if (Math.abs(px - lastPlayerX) > 0 || Math.abs(pz - lastPlayerZ) > 0 || client.player.age % 20 == 0) {
-            updateTexture(client.world, px, (int)player.getY(), pz);
-            lastPlayerX = px; lastPlayerZ = pz;
-        }
+        int x = getX(w);
+        int y = getY(h);
 
         HudRenderer.fillSafe(context, x - 2, y - 2, x + size + 2, y + size + 2, config.minimapBorderColor);
         HudRenderer.fillSafe(context, x, y, x + size, y + size, 0xFF000000);
@@ -100,23 +170,19 @@ public class MinimapHud {
             float angle = config.minimapRotate ? player.getYaw() + 180.0f : 180.0f;
             matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(angle));
             
-            float scale = (float)size / (float)(MAP_SIZE / Math.max(1, config.minimapZoom));
+            int level = zoomOutLevel();
+            float scale = level > 0 ? (float)size / MAP_SIZE : (float)size / (float)(MAP_SIZE / Math.max(1, config.minimapZoom));
             matrices.scale(scale, scale, 1.0f);
             
-            if (mapTextureId != null) {
-                HudRenderer.drawTextureSafe(context, mapTextureId, -MAP_SIZE/2, -MAP_SIZE/2, 0, 0, MAP_SIZE, MAP_SIZE);
-            }
+            if (mapTextureId != null) drawRaster(context);
             
             if (config.minimapShowEntities) {
-                for (Entity e : client.world.getEntities()) {
-                    if (e == player) continue;
-                    double edx = (player.getX() - e.getX());
-                    double edz = (player.getZ() - e.getZ());
-                    if (Math.abs(edx) < 60 && Math.abs(edz) < 60) {
-                        int c = (e instanceof PlayerEntity) ? 0xFFFFFFFF : 0xFFFF0000;
-                        HudRenderer.fillSafe(context, (int)edx - 1, (int)edz - 1, (int)edx + 1, (int)edz + 1, c);
-                    }
-                }
+                long spanStart = Spans.begin(Spans.ENTITY_RADAR);
+                HudRenderer.flushSafe(context);
+                radarBatch.begin(matrices.peek().getPositionMatrix());
+                radar.draw(radarBatch, player, tickDelta, 1 << level);
+                radarBatch.draw();
+                Spans.end(Spans.ENTITY_RADAR, spanStart);
             }
             matrices.pop();
         }
@@ -127,66 +193,156 @@ public class MinimapHud {
         if (!config.minimapRotate) {
             HudRenderer.drawTextSafe(context, client.textRenderer, "N", x + halfSize - 2, y + 4, 0xFFFFFFFF, true);
         }
+        
+        if (config.minimapShowUploadStats) {
+            HudRenderer.drawTextSafe(context, client.textRenderer, uploadStatsText, x, y + size + 4, 0xFFAAAAAA, true);
+        }
+    }
+    
+    // Every frame: upload whatever the rasterizer finished, so scrolling stays smooth between ticks
+    @Override
+    public void frameUpdate() {
+        if (!initialized || mapImage == null) return;
+        long spanStart = Spans.begin(Spans.MINIMAP_TEXTURE);
+        try {
+            // Only finished worker output is touched here
+            uploadBytesThisFrame = 0;
+            mapTexture.bindTexture();
+            rasterizer.drain(dirtySink);
+            recordUploadStats();
+        } finally {
+            Spans.end(Spans.MINIMAP_TEXTURE, spanStart);
+        }
     }
     
-    private void updateTexture(World world, int px, int py, int pz) {
+    private void updateTexture(World world, int px, int py, int pz, int age) {
         if (mapImage == null) return;
-        BlockPos.Mutable pos = new BlockPos.Mutable();
-        int offset = MAP_SIZE / 2;
+        long spanStart = Spans.begin(Spans.MINIMAP_TEXTURE);
+        try {
+            updateTextureTimed(world, px, py, pz, age);
+        } finally {
+            Spans.end(Spans.MINIMAP_TEXTURE, spanStart);
+        }
+    }
+    
+    private int zoomOutLevel() {
+        return Math.max(0, Math.min(ChunkColumnCache.MAX_LEVEL, config.minimapZoomOut));
+    }
+    
+    // Start Y of the cave/Nether slice at head height, or SURFACE
+    private int sliceStartY(World world, int px, int py, int pz) {
+        switch (config.minimapSliceMode) {
+            case 0: return SURFACE;
+            case 2: return py + 1;
+            default:
+                if (world.getDimension().hasCeiling()) return py + 1;
+                // No sky light at the head means the player is enclosed, i.e. underground
+                boolean enclosed = world.getDimension().hasSkyLight()
+                    && world.getLightLevel(LightType.SKY, new BlockPos(px, py + 1, pz)) == 0;
+                return enclosed ? py + 1 : SURFACE;
+        }
+    }
+    
+    // Quantizes the head Y to a slice start. The band never starts above the head (that would show
+    // ceilings), but going up it is kept for one extra block so jumping does not re-slice.
+    private int sliceBand(int headY) {
+        if (lastSliceY != SURFACE && headY >= lastSliceY && headY <= lastSliceY + SLICE_STEP) return lastSliceY;
+        return Math.floorDiv(headY, SLICE_STEP) * SLICE_STEP;
+    }
+    
+    private void updateTextureTimed(World world, int px, int py, int pz, int age) {
+        int level = zoomOutLevel();
+        int sliceY = sliceStartY(world, px, py, pz);
+        if (sliceY != SURFACE) sliceY = sliceBand(sliceY);
+        boolean slopeShading = config.minimapSlopeShading;
+        boolean modeChanged = (sliceY == SURFACE) != (lastSliceY == SURFACE);
+        if (world != lastWorld || level != lastLevel || modeChanged || slopeShading != lastSlopeShading) {
+            // A level or mode switch is one parallel rebuild from the cached chunk columns; a new slice
+            // band instead redraws chunk by chunk as the background slices arrive
+            rasterizer.reset();
+            lastWorld = world;
+            lastLevel = level;
+            lastSlopeShading = slopeShading;
+            lastPlayerX = Integer.MAX_VALUE;
+        }
+        lastSliceY = sliceY;
+        // Raster coordinates are map pixels, so zoomed-out levels only scroll every 2^level blocks
+        px >>= level;
+        pz >>= level;
         
-        for (int x = 0; x < MAP_SIZE; x++) {
-            for (int z = 0; z < MAP_SIZE; z++) {
-                int worldX = px + (x - offset);
-                int worldZ = pz + (z - offset);
-                
-                int topY = world.getTopY(Heightmap.Type.MOTION_BLOCKING, worldX, worldZ);
-                pos.set(worldX, topY - 1, worldZ);
-                
-                BlockState state = world.getBlockState(pos);
-                int color = 0;
-                
-                if (!state.isAir()) {
-                    // Manual Colors to ensure it works
-                    if (state.getBlock() == Blocks.GRASS_BLOCK) color = 0x2E8B57;
-                    else if (state.getBlock() == Blocks.WATER) color = 0x4040FF;
-                    else if (state.getBlock() == Blocks.STONE) color = 0x707070;
-                    else if (state.getBlock() == Blocks.SAND) color = 0xF0E68C;
-                    else {
-                        MapColor mapColor = state.getMapColor(world, pos);
-                        if (mapColor != null) color = mapColor.color;
-                    }
-                    
-                    if (color == 0) color = 0x555555;
-                    
-                    // Height shading
-                    if (topY < py) color = darken(color, 20);
-                    else if (topY > py) color = brighten(color, 20);
-                    
-                    int r = (color >> 16) & 0xFF;
-                    int g = (color >> 8) & 0xFF;
-                    int b = (color) & 0xFF;
-                    int abgr = 0xFF000000 | (b << 16) | (g << 8) | r;
-                    
-                    mapImage.setColor(x, z, abgr);
-                } else {
-                    mapImage.setColor(x, z, 0xFF000000);
-                }
+        boolean moved = px != lastPlayerX || pz != lastPlayerZ;
+        // Pick up block changes gradually instead of rebuilding everything every 20 ticks
+        boolean refresh = age != lastRefreshAge;
+        if (moved || refresh) {
+            int half = MAP_SIZE / 2, shift = 4 - level;
+            // Wide levels reach past the loaded area; the rest comes from the explored map
+            int reach = MinecraftClient.getInstance().options.getClampedViewDistance() + 1;
+            int pcx = (px << level) >> 4, pcz = (pz << level) >> 4;
+            int minCx = Math.max((px - half) >> shift, pcx - reach), minCz = Math.max((pz - half) >> shift, pcz - reach);
+            int maxCx = Math.min((px + half - 1) >> shift, pcx + reach), maxCz = Math.min((pz + half - 1) >> shift, pcz + reach);
+            // The explored map only knows the surface, so a slice leaves unloaded chunks blank
+            boolean slice = sliceY != SURFACE;
+            ColumnSnapshot snapshot;
+            if (slice) {
+                slicedChunks.clear();
+                snapshot = columnCache.sliceSnapshot(minCx, minCz, maxCx, maxCz, sliceY, slicedChunks);
+                rasterizer.refreshChunks(slicedChunks);
+            } else {
+                snapshot = columnCache.snapshot(minCx, minCz, maxCx, maxCz);
+            }
+            rasterizer.submit(snapshot, slice ? null : tileStore.currentSession(), level, slopeShading, px, pz, py, refreshRow, refresh ? REFRESH_ROWS_PER_TICK : 0);
+            if (refresh) {
+                refreshRow = (refreshRow + REFRESH_ROWS_PER_TICK) % MAP_SIZE;
+                lastRefreshAge = age;
             }
+            lastPlayerX = px; lastPlayerZ = pz;
         }
-        mapTexture.upload();
     }
     
-    private int darken(int color, int amount) {
-        int r = Math.max(0, ((color >> 16) & 0xFF) - amount);
-        int g = Math.max(0, ((color >> 8) & 0xFF) - amount);
-        int b = Math.max(0, (color & 0xFF) - amount);
-        return (r << 16) | (g << 8) | b;
+    // Copies one finished region into the image and pushes just that sub-rectangle to the GPU
+    private void uploadRegion(int x, int y, int w, int h) {
+        int[] pixels = rasterizer.getFrontPixels();
+        for (int row = y; row < y + h; row++) {
+            int base = row * MAP_SIZE;
+            for (int col = x; col < x + w; col++) {
+                mapImage.setColor(col, row, pixels[base + col]);
+            }
+        }
+        mapImage.upload(0, x, y, x, y, w, h, false, false, false, false);
+        uploadBytesThisFrame += w * h * 4;
     }
     
-    private int brighten(int color, int amount) {
-        int r = Math.min(255, ((color >> 16) & 0xFF) + amount);
-        int g = Math.min(255, ((color >> 8) & 0xFF) + amount);
-        int b = Math.min(255, (color & 0xFF) + amount);
-        return (r << 16) | (g << 8) | b;
+    private void recordUploadStats() {
+        uploadBytesLastFrame = uploadBytesThisFrame;
+        uploadBytesTotal += uploadBytesThisFrame;
+        statsWindowBytes += uploadBytesThisFrame;
+        statsWindowFrames++;
+        long now = System.currentTimeMillis();
+        if (now - statsWindowStart >= 1000) {
+            int avg = (int) (statsWindowBytes / Math.max(1, statsWindowFrames));
+            if (avg != uploadBytesPerFrameAvg) {
+                uploadBytesPerFrameAvg = avg;
+                uploadStatsText = "Upload: " + avg + " B/frame";
+            }
+            statsWindowBytes = 0;
+            statsWindowFrames = 0;
+            statsWindowStart = now;
+        }
+    }
+    
+    public int getUploadBytesLastFrame() { return uploadBytesLastFrame; }
+    public int getUploadBytesPerFrameAvg() { return uploadBytesPerFrameAvg; }
+    public long getUploadBytesTotal() { return uploadBytesTotal; }
+    
+    // The texture is stored wrapped around the player's position, so unroll it in up to four quads
+    private void drawRaster(DrawContext context) {
+        int u0 = rasterizer.getDrainedOriginU(), v0 = rasterizer.getDrainedOriginV();
+        int w1 = MAP_SIZE - u0, h1 = MAP_SIZE - v0;
+        int left = -MAP_SIZE / 2, top = -MAP_SIZE / 2;
+        
+        HudRenderer.drawTextureRegionSafe(context, mapTextureId, left, top, u0, v0, w1, h1, MAP_SIZE, MAP_SIZE);
+        if (u0 > 0) HudRenderer.drawTextureRegionSafe(context, mapTextureId, left + w1, top, 0, v0, u0, h1, MAP_SIZE, MAP_SIZE);
+        if (v0 > 0) HudRenderer.drawTextureRegionSafe(context, mapTextureId, left, top + h1, u0, 0, w1, v0, MAP_SIZE, MAP_SIZE);
+        if (u0 > 0 && v0 > 0) HudRenderer.drawTextureRegionSafe(context, mapTextureId, left + w1, top + h1, 0, 0, u0, v0, MAP_SIZE, MAP_SIZE);
     }
 }
@@ -0,0 +1,204 @@
+package com.lightcraft.client.minimap;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.WorldChunk;
+import java.util.Arrays;
+
+/**
+ * Per-chunk summary of the top block of every column, kept in sync with chunk load/unload
+ * events and patched on block updates so the minimap never has to query the world per pixel.
+ * Each column is packed into a long: top Y (16 bits), fluid depth (8 bits), state id (32 bits).
+ * Column arrays are never mutated once published, so snapshots can be read off-thread.
+ * After the 256 full-resolution columns each array holds reduced levels for zoomed-out maps
+ * (8x8, 4x4, 2x2 and 1x1 cells); a reduced cell is the tallest of its four children.
+ * Cave/Nether slices (first block below a given Y) come from {@link #sliceSnapshot}.
+ */
+public class ChunkColumnCache {
+    public interface Listener {
+        void onWorldChanged(ClientWorld world);
+        /** Called whenever a chunk's columns are (re)published; the array is never mutated afterwards. */
+        void onColumnsChanged(int chunkX, int chunkZ, long[] columns);
+    }
+
+    private static final int MAX_FLUID_DEPTH = 255;
+
+    /** Coarsest reduced level; level n has one cell per 2^n x 2^n blocks. */
+    public static final int MAX_LEVEL = 4;
+    private static final int[] LEVEL_OFFSET = { 0, 256, 256 + 64, 256 + 64 + 16, 256 + 64 + 16 + 4 };
+    public static final int PACKED_LENGTH = 256 + 64 + 16 + 4 + 1;
+
+    // Presence bitmap over a 128x128 chunk torus; wider than any client view distance so it never aliases
+    private static final int PRESENCE_MASK = 127;
+    private final long[] presence = new long[128 * 128 / 64];
+
+    private final Long2ObjectOpenHashMap<long[]> chunks = new Long2ObjectOpenHashMap<>();
+    private final SliceColumnCache slices = new SliceColumnCache();
+    private final BlockPos.Mutable scanPos = new BlockPos.Mutable();
+    private ClientWorld world;
+    private Listener listener;
+
+    public void onChunkLoad(ClientWorld world, WorldChunk chunk) {
+        if (world != this.world) {
+            clear();
+            this.world = world;
+            if (listener != null) listener.onWorldChanged(world);
+        }
+        ChunkPos cp = chunk.getPos();
+        slices.remove(cp.x, cp.z);
+        long[] columns = new long[PACKED_LENGTH];
+        for (int lz = 0; lz < 16; lz++) {
+            for (int lx = 0; lx < 16; lx++) {
+                columns[(lz << 4) | lx] = sampleColumn(chunk, lx, lz);
+            }
+        }
+        buildLevels(columns);
+        chunks.put(cp.toLong(), columns);
+        setPresent(cp.x, cp.z, true);
+        if (listener != null) listener.onColumnsChanged(cp.x, cp.z, columns);
+    }
+
+    public void onChunkUnload(ClientWorld world, WorldChunk chunk) {
+        if (world != this.world) return;
+        ChunkPos cp = chunk.getPos();
+        slices.remove(cp.x, cp.z);
+        if (chunks.remove(cp.toLong()) != null) setPresent(cp.x, cp.z, false);
+    }
+
+    public void onBlockChanged(ClientWorld world, BlockPos pos) {
+        if (world != this.world) return;
+        int cx = pos.getX() >> 4, cz = pos.getZ() >> 4;
+        if (!isPresent(cx, cz)) return;
+        long[] columns = chunks.get(ChunkPos.toLong(cx, cz));
+        if (columns == null) return;
+        slices.onBlockChanged(pos);
+        int lx = pos.getX() & 15, lz = pos.getZ() & 15;
+        long updated = sampleColumn(world.getChunk(cx, cz), lx, lz);
+        if (updated == columns[(lz << 4) | lx]) return;
+        long[] copy = columns.clone();
+        copy[(lz << 4) | lx] = updated;
+        // Only the one cell above the block changes on each level
+        for (int level = 1; level <= MAX_LEVEL; level++) reduce(copy, level, lx >> level, lz >> level);
+        chunks.put(ChunkPos.toLong(cx, cz), copy);
+        if (listener != null) listener.onColumnsChanged(cx, cz, copy);
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /** Captures the chunks in the given inclusive range for use on another thread. */
+    public ColumnSnapshot snapshot(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        int width = maxChunkX - minChunkX + 1, height = maxChunkZ - minChunkZ + 1;
+        long[][] grid = new long[width * height][];
+        for (int z = 0; z < height; z++) {
+            for (int x = 0; x < width; x++) {
+                grid[z * width + x] = getColumns(minChunkX + x, minChunkZ + z);
+            }
+        }
+        return new ColumnSnapshot(minChunkX, minChunkZ, width, height, grid);
+    }
+
+    /**
+     * Like {@link #snapshot}, but each column holds the first non-air block at or below {@code startY}
+     * (at most {@link SliceColumnCache#MAX_DEPTH} blocks down). Slicing happens in the background:
+     * chunks not yet sliced for {@code startY} keep their previous slice, or are null, and the packed
+     * positions of chunks whose slice changed since the last call are added to {@code sliced}.
+     */
+    public ColumnSnapshot sliceSnapshot(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, int startY, LongArrayList sliced) {
+        int width = maxChunkX - minChunkX + 1, height = maxChunkZ - minChunkZ + 1;
+        long[][] grid = new long[width * height][];
+        slices.begin(startY, sliced);
+        for (int z = 0; z < height; z++) {
+            for (int x = 0; x < width; x++) {
+                if (getColumns(minChunkX + x, minChunkZ + z) == null) continue;
+                grid[z * width + x] = slices.columns(world.getChunk(minChunkX + x, minChunkZ + z), startY);
+            }
+        }
+        return new ColumnSnapshot(minChunkX, minChunkZ, width, height, grid);
+    }
+
+    public void clear() {
+        chunks.clear();
+        slices.clear();
+        Arrays.fill(presence, 0L);
+        world = null;
+    }
+
+    public boolean isPresent(int chunkX, int chunkZ) {
+        int bit = ((chunkZ & PRESENCE_MASK) << 7) | (chunkX & PRESENCE_MASK);
+        return (presence[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Packed columns of a chunk indexed by {@code (localZ << 4) | localX}, followed by the reduced
+     * levels (see {@link #levelOffset}), or null if it is not loaded.
+     */
+    public long[] getColumns(int chunkX, int chunkZ) {
+        if (!isPresent(chunkX, chunkZ)) return null;
+        return chunks.get(ChunkPos.toLong(chunkX, chunkZ));
+    }
+
+    private void setPresent(int chunkX, int chunkZ, boolean present) {
+        int bit = ((chunkZ & PRESENCE_MASK) << 7) | (chunkX & PRESENCE_MASK);
+        if (present) presence[bit >>> 6] |= 1L << bit;
+        else presence[bit >>> 6] &= ~(1L << bit);
+    }
+
+    /** Start of a level in a packed chunk array; the level is {@code 16 >> level} cells wide, row-major. */
+    public static int levelOffset(int level) { return LEVEL_OFFSET[level]; }
+
+    /** Fills the reduced levels of a packed chunk array from its full-resolution columns. */
+    static void buildLevels(long[] columns) {
+        for (int level = 1; level <= MAX_LEVEL; level++) {
+            int cells = 16 >> level;
+            for (int cz = 0; cz < cells; cz++) {
+                for (int cx = 0; cx < cells; cx++) reduce(columns, level, cx, cz);
+            }
+        }
+    }
+
+    // Tallest of the four cells below, so ridges and buildings survive zooming out
+    private static void reduce(long[] columns, int level, int cx, int cz) {
+        int childWidth = 16 >> (level - 1);
+        int child = LEVEL_OFFSET[level - 1] + (cz * 2) * childWidth + cx * 2;
+        long best = columns[child];
+        long c = columns[child + 1];
+        if (topY(c) > topY(best)) best = c;
+        c = columns[child + childWidth];
+        if (topY(c) > topY(best)) best = c;
+        c = columns[child + childWidth + 1];
+        if (topY(c) > topY(best)) best = c;
+        columns[LEVEL_OFFSET[level] + cz * (childWidth >> 1) + cx] = best;
+    }
+
+    private long sampleColumn(WorldChunk chunk, int lx, int lz) {
+        int topY = chunk.sampleHeightmap(Heightmap.Type.MOTION_BLOCKING, lx, lz);
+        ChunkPos cp = chunk.getPos();
+        scanPos.set(cp.getStartX() + lx, topY, cp.getStartZ() + lz);
+        BlockState state = chunk.getBlockState(scanPos);
+
+        int fluidDepth = 0;
+        if (!state.getFluidState().isEmpty()) {
+            int bottom = chunk.getBottomY();
+            while (fluidDepth < MAX_FLUID_DEPTH && scanPos.getY() > bottom
+                    && !chunk.getBlockState(scanPos).getFluidState().isEmpty()) {
+                fluidDepth++;
+                scanPos.move(0, -1, 0);
+            }
+        }
+        return pack(topY, Block.getRawIdFromState(state), fluidDepth);
+    }
+
+    public static long pack(int topY, int stateId, int fluidDepth) {
+        return ((long) stateId << 32) | ((long) (fluidDepth & 0xFF) << 16) | (topY & 0xFFFFL);
+    }
+
+    public static int topY(long packed) { return (short) packed; }
+    public static int fluidDepth(long packed) { return (int) (packed >>> 16) & 0xFF; }
+    public static int stateId(long packed) { return (int) (packed >>> 32); }
+}
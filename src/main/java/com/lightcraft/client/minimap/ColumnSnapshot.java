@@ -0,0 +1,26 @@
+package com.lightcraft.client.minimap;
+
+/**
+ * Immutable view of the cached chunk columns around the player.
+ * The column arrays are copy-on-write in {@link ChunkColumnCache}, so a snapshot can be read
+ * from the raster worker while the client thread keeps patching the cache.
+ */
+public final class ColumnSnapshot {
+    private final int minChunkX, minChunkZ, width, height;
+    private final long[][] chunks;
+
+    ColumnSnapshot(int minChunkX, int minChunkZ, int width, int height, long[][] chunks) {
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.width = width;
+        this.height = height;
+        this.chunks = chunks;
+    }
+
+    /** Packed columns for the chunk, or null if it was not loaded or lies outside the snapshot. */
+    public long[] getColumns(int chunkX, int chunkZ) {
+        int ix = chunkX - minChunkX, iz = chunkZ - minChunkZ;
+        if (ix < 0 || iz < 0 || ix >= width || iz >= height) return null;
+        return chunks[iz * width + ix];
+    }
+}
@@ -0,0 +1,38 @@
+package com.lightcraft.client.minimap;
+
+/**
+ * Small list of dirty rectangles. Once it overflows the rectangles collapse into their
+ * bounding box, so a burst of updates never costs more than one full-area copy.
+ */
+public class DirtyRegion implements MinimapRaster.DirtySink {
+    private static final int MAX_RECTS = 16;
+    private final int[] rects = new int[MAX_RECTS * 4];
+    private int count = 0;
+
+    @Override
+    public void markDirty(int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0) return;
+        if (count == MAX_RECTS) collapse();
+        int i = count++ * 4;
+        rects[i] = x; rects[i + 1] = y; rects[i + 2] = w; rects[i + 3] = h;
+    }
+
+    public void forEach(MinimapRaster.DirtySink sink) {
+        for (int i = 0; i < count * 4; i += 4) sink.markDirty(rects[i], rects[i + 1], rects[i + 2], rects[i + 3]);
+    }
+
+    public boolean isEmpty() { return count == 0; }
+    public void clear() { count = 0; }
+
+    private void collapse() {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < count * 4; i += 4) {
+            minX = Math.min(minX, rects[i]);
+            minY = Math.min(minY, rects[i + 1]);
+            maxX = Math.max(maxX, rects[i] + rects[i + 2]);
+            maxY = Math.max(maxY, rects[i + 1] + rects[i + 3]);
+        }
+        rects[0] = minX; rects[1] = minY; rects[2] = maxX - minX; rects[3] = maxY - minY;
+        count = 1;
+    }
+}
@@ -0,0 +1,101 @@
+package com.lightcraft.client.minimap;
+
+import com.lightcraft.client.gui.QuadBatch;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import java.util.Arrays;
+
+/**
+ * Entity dots for the minimap.
+ * Once per client tick every nearby entity is copied into primitive arrays bucketed by chunk;
+ * frames then only visit the buckets inside the radar range, interpolate with tickDelta and
+ * emit all dots into a single {@link QuadBatch}.
+ */
+public class EntityRadar {
+    public static final float RANGE = 60;
+    // Chunk-sized buckets covering the range plus a margin for entities that move during the tick
+    private static final int GRID = ((int) RANGE + 16) * 2 / 16 + 1;
+
+    private int originX, originZ;
+    private int count = 0;
+    private int[] cellStart = new int[GRID * GRID + 1];
+
+    // Entity data sorted by cell, positions relative to the grid origin
+    private float[] prevX = new float[64], prevZ = new float[64], curX = new float[64], curZ = new float[64];
+    private int[] color = new int[64];
+
+    // Unsorted scratch filled during the snapshot
+    private float[] tPrevX = new float[64], tPrevZ = new float[64], tCurX = new float[64], tCurZ = new float[64];
+    private int[] tColor = new int[64], tCell = new int[64];
+
+    public void snapshot(World world, PlayerEntity player) {
+        originX = ((MathHelper.floor(player.getX()) >> 4) - GRID / 2) << 4;
+        originZ = ((MathHelper.floor(player.getZ()) >> 4) - GRID / 2) << 4;
+
+        int n = 0;
+        for (Entity e : world.getEntities()) {
+            if (e == player) continue;
+            int cx = (MathHelper.floor(e.getX()) - originX) >> 4;
+            int cz = (MathHelper.floor(e.getZ()) - originZ) >> 4;
+            if (cx < 0 || cz < 0 || cx >= GRID || cz >= GRID) continue;
+            if (n == tCell.length) grow(n * 2);
+            tCell[n] = cz * GRID + cx;
+            tPrevX[n] = (float) (e.prevX - originX);
+            tPrevZ[n] = (float) (e.prevZ - originZ);
+            tCurX[n] = (float) (e.getX() - originX);
+            tCurZ[n] = (float) (e.getZ() - originZ);
+            tColor[n] = (e instanceof PlayerEntity) ? 0xFFFFFFFF : 0xFFFF0000;
+            n++;
+        }
+
+        // Counting sort by cell
+        Arrays.fill(cellStart, 0);
+        for (int i = 0; i < n; i++) cellStart[tCell[i] + 1]++;
+        for (int c = 0; c < GRID * GRID; c++) cellStart[c + 1] += cellStart[c];
+        int[] next = cellStart.clone();
+        for (int i = 0; i < n; i++) {
+            int j = next[tCell[i]]++;
+            prevX[j] = tPrevX[i]; prevZ[j] = tPrevZ[i];
+            curX[j] = tCurX[i]; curZ[j] = tCurZ[i];
+            color[j] = tColor[i];
+        }
+        count = n;
+    }
+
+    /**
+     * Emits one dot per entity within range of the interpolated player position, in the
+     * minimap's rotated frame (offset = player - entity, as the map texture is drawn), with
+     * offsets divided by the map's blocks per pixel.
+     */
+    public void draw(QuadBatch batch, PlayerEntity player, float tickDelta, float blocksPerPixel) {
+        if (count == 0) return;
+        float px = (float) (MathHelper.lerp(tickDelta, player.prevX, player.getX()) - originX);
+        float pz = (float) (MathHelper.lerp(tickDelta, player.prevZ, player.getZ()) - originZ);
+        int minCX = Math.max(0, (int) Math.floor((px - RANGE) / 16)), maxCX = Math.min(GRID - 1, (int) Math.floor((px + RANGE) / 16));
+        int minCZ = Math.max(0, (int) Math.floor((pz - RANGE) / 16)), maxCZ = Math.min(GRID - 1, (int) Math.floor((pz + RANGE) / 16));
+
+        for (int cz = minCZ; cz <= maxCZ; cz++) {
+            for (int cx = minCX; cx <= maxCX; cx++) {
+                int cell = cz * GRID + cx;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    float dx = px - (prevX[i] + (curX[i] - prevX[i]) * tickDelta);
+                    float dz = pz - (prevZ[i] + (curZ[i] - prevZ[i]) * tickDelta);
+                    if (Math.abs(dx) >= RANGE || Math.abs(dz) >= RANGE) continue;
+                    dx /= blocksPerPixel; dz /= blocksPerPixel;
+                    batch.fill(dx - 1, dz - 1, dx + 1, dz + 1, color[i]);
+                }
+            }
+        }
+    }
+
+    private void grow(int capacity) {
+        tPrevX = Arrays.copyOf(tPrevX, capacity); tPrevZ = Arrays.copyOf(tPrevZ, capacity);
+        tCurX = Arrays.copyOf(tCurX, capacity); tCurZ = Arrays.copyOf(tCurZ, capacity);
+        tColor = Arrays.copyOf(tColor, capacity); tCell = Arrays.copyOf(tCell, capacity);
+        prevX = new float[capacity]; prevZ = new float[capacity];
+        curX = new float[capacity]; curZ = new float[capacity];
+        color = new int[capacity];
+    }
+}
@@ -0,0 +1,93 @@
+package com.lightcraft.client.minimap;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Multi-resolution view of the explored map for the world map screen.
+ * Level 0 tiles are read straight from the region files at one block per pixel. Higher levels
+ * halve the resolution each time and are precomputed by {@link MapTileStore} whenever region data
+ * is written, so reading any tile is one file read. Read tiles are kept in a bounded LRU, and
+ * tiles that cannot overlap any region file are rejected with a set lookup.
+ */
+public class MapTilePyramid {
+    public static final int TILE_SHIFT = 8;
+    public static final int TILE_SIZE = 1 << TILE_SHIFT;
+    public static final int MAX_LEVEL = 6;
+    private static final int MAX_CACHED_TILES = 64;
+    private static final int[] EMPTY = new int[0];
+
+    private final MapTileStore.Session session;
+    // Per level, packed (tileX, tileZ) of every tile that overlaps a region file
+    private final LongOpenHashSet[] occupied = new LongOpenHashSet[MAX_LEVEL + 1];
+    private final LinkedHashMap<Long, int[]> cache = new LinkedHashMap<>(MAX_CACHED_TILES, 0.75f, true);
+
+    public MapTilePyramid(MapTileStore.Session session) {
+        this.session = session;
+        for (int level = 0; level <= MAX_LEVEL; level++) occupied[level] = new LongOpenHashSet();
+        if (session == null) return;
+        for (long region : session.listRegions()) {
+            int rx = (int) (region >> 32), rz = (int) region;
+            // A region is 2x2 level-0 tiles and exactly one level-1 tile
+            for (int q = 0; q < 4; q++) occupied[0].add(MapTileStore.pack(rx * 2 + (q & 1), rz * 2 + (q >> 1)));
+            for (int level = 1; level <= MAX_LEVEL; level++) occupied[level].add(MapTileStore.pack(rx >> (level - 1), rz >> (level - 1)));
+        }
+    }
+
+    public static long key(int level, int tileX, int tileZ) {
+        return ((long) level << 56) | ((long) (tileX & 0xFFFFFFF) << 28) | (tileZ & 0xFFFFFFF);
+    }
+
+    /** Cheap check against the region list; false means the tile is certainly empty. */
+    public boolean mayContainData(int level, int tileX, int tileZ) {
+        return occupied[level].contains(MapTileStore.pack(tileX, tileZ));
+    }
+
+    /** ABGR pixels of a tile; null if nothing was explored there. */
+    public int[] getTile(int level, int tileX, int tileZ) {
+        long key = key(level, tileX, tileZ);
+        int[] tile;
+        synchronized (cache) { tile = cache.get(key); }
+        if (tile == null) {
+            tile = mayContainData(level, tileX, tileZ) ? read(level, tileX, tileZ) : null;
+            if (tile == null) tile = EMPTY;
+            synchronized (cache) {
+                cache.put(key, tile);
+                if (cache.size() > MAX_CACHED_TILES) {
+                    Iterator<int[]> eldest = cache.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        return tile == EMPTY ? null : tile;
+    }
+
+    private int[] read(int level, int tileX, int tileZ) {
+        if (level > 0) return session.readMip(level, tileX, tileZ);
+        int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+        return session.readColors(tileX << TILE_SHIFT, tileZ << TILE_SHIFT, TILE_SIZE, pixels) ? pixels : null;
+    }
+
+    // 2x2 box filter of a child tile into one quadrant; unexplored (transparent) pixels are ignored
+    static void downsample(int[] child, int[] out, int offsetX, int offsetZ) {
+        int half = TILE_SIZE / 2;
+        for (int z = 0; z < half; z++) {
+            for (int x = 0; x < half; x++) {
+                int i = (z * 2) * TILE_SIZE + x * 2;
+                out[(offsetZ + z) * TILE_SIZE + offsetX + x] = average(child[i], child[i + 1], child[i + TILE_SIZE], child[i + TILE_SIZE + 1]);
+            }
+        }
+    }
+
+    private static int average(int p0, int p1, int p2, int p3) {
+        int n = 0, r = 0, g = 0, b = 0;
+        if ((p0 >>> 24) != 0) { n++; r += p0 & 0xFF; g += (p0 >> 8) & 0xFF; b += (p0 >> 16) & 0xFF; }
+        if ((p1 >>> 24) != 0) { n++; r += p1 & 0xFF; g += (p1 >> 8) & 0xFF; b += (p1 >> 16) & 0xFF; }
+        if ((p2 >>> 24) != 0) { n++; r += p2 & 0xFF; g += (p2 >> 8) & 0xFF; b += (p2 >> 16) & 0xFF; }
+        if ((p3 >>> 24) != 0) { n++; r += p3 & 0xFF; g += (p3 >> 8) & 0xFF; b += (p3 >> 16) & 0xFF; }
+        if (n == 0) return 0;
+        return 0xFF000000 | ((b / n) << 16) | ((g / n) << 8) | (r / n);
+    }
+}
@@ -0,0 +1,438 @@
+package com.lightcraft.client.minimap;
+
+import com.lightcraft.client.LightCraftClient;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Explored-map storage that outlives chunk unloads and sessions.
+ * Each server/world/dimension gets a directory of fixed-size region files covering 512x512
+ * blocks, read and written through memory-mapped channels. Chunk updates are queued and
+ * written in batches on a background thread, which also forces dirty regions to disk.
+ *
+ * Region layout (version 1, little endian):
+ *   0   int magic, int version, int regionX, int regionZ
+ *   16  explored bitset, one bit per chunk (32x32 = 16 longs)
+ *   256 512*512 ABGR colours (unshaded), then 512*512 surface heights as shorts
+ *
+ * Zoomed-out levels of the {@link MapTilePyramid} are kept next to the regions as
+ * {@code m.<level>.<tileX>.<tileZ>.lcmip} files of 256*256 little-endian ABGR ints; a level-1 tile
+ * is one region. After each batch only the tiles above the regions it touched are rebuilt,
+ * bottom-up, each from its four children.
+ */
+public class MapTileStore {
+    public static final int REGION_SHIFT = 9;
+    public static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int CHUNKS_PER_REGION = REGION_SIZE >> 4;
+
+    private static final int MAGIC = 0x4C434D50; // "LCMP"
+    private static final int VERSION = 1;
+    private static final int EXPLORED_OFFSET = 16;
+    private static final int HEADER_SIZE = 256;
+    private static final int COLOR_OFFSET = HEADER_SIZE;
+    private static final int HEIGHT_OFFSET = COLOR_OFFSET + REGION_SIZE * REGION_SIZE * 4;
+    private static final int FILE_SIZE = HEIGHT_OFFSET + REGION_SIZE * REGION_SIZE * 2;
+
+    private static final int MAX_OPEN_REGIONS = 16;
+    private static final int MAX_CACHED_MIPS = 32;
+    private static final int[] NO_MIP = new int[0];
+    private static final long FLUSH_INTERVAL_MS = 2000;
+
+    private final Path root;
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "LightCraft Map Store");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile Session session;
+
+    public MapTileStore(Path root) {
+        this.root = root;
+        io.scheduleWithFixedDelay(this::flushCurrent, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Switches to the store for the given world and dimension, closing the previous one in the background. */
+    public void open(String worldKey, String dimensionKey) {
+        Path dir = root.resolve(worldKey).resolve(dimensionKey);
+        Session old = session;
+        if (old != null && old.dir.equals(dir)) return;
+        session = new Session(dir);
+        if (old != null) io.execute(old::close);
+    }
+
+    /** Closes the current session; with {@code wait} the pending batch is written before returning. */
+    public void close(boolean wait) {
+        Session old = session;
+        session = null;
+        if (old == null) return;
+        Future<?> done = io.submit(old::close);
+        if (!wait) return;
+        try {
+            done.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) { LightCraftClient.LOGGER.error("Error closing explored map", e); }
+    }
+
+    /** Session for the current world, or null if none is open. Safe to use from any thread. */
+    public Session currentSession() { return session; }
+
+    /** Queues a chunk's columns for the next batch write. The array must not be mutated afterwards. */
+    public void queueChunk(int chunkX, int chunkZ, long[] columns) {
+        Session s = session;
+        if (s != null) s.pending.put(pack(chunkX, chunkZ), columns);
+    }
+
+    /** Writes the pending batch soon instead of waiting for the next interval. */
+    public void requestFlush() { io.execute(this::flushCurrent); }
+
+    private void flushCurrent() {
+        Session s = session;
+        if (s != null) s.flush();
+    }
+
+    public static long pack(int x, int z) { return ((long) x << 32) | (z & 0xFFFFFFFFL); }
+
+    public static class Session {
+        private final Path dir;
+        private final ConcurrentHashMap<Long, long[]> pending = new ConcurrentHashMap<>();
+        private final Set<Long> missing = ConcurrentHashMap.newKeySet();
+        private final LinkedHashMap<Long, Region> regions = new LinkedHashMap<>(MAX_OPEN_REGIONS, 0.75f, true);
+        // Mip tiles read for the minimap; bumped generation drops reads that raced a rewrite
+        private final LinkedHashMap<Long, int[]> mips = new LinkedHashMap<>(MAX_CACHED_MIPS, 0.75f, true);
+        private int mipGeneration = 0;
+        // Regions written since the mip tiles were last updated; io thread only
+        private final Set<Long> mipDirty = new HashSet<>();
+        private boolean mipsChecked = false;
+        private volatile boolean closed = false;
+
+        Session(Path dir) { this.dir = dir; }
+
+        /**
+         * Fills a run of at most one chunk with stored pixels shaded against playerY.
+         * Returns false if that chunk has never been explored.
+         */
+        public boolean sampleRow(int worldX, int worldZ, int count, int[] out, int offset, int playerY) {
+            Region region = region(worldX >> REGION_SHIFT, worldZ >> REGION_SHIFT, false);
+            if (region == null || !region.isExplored((worldX >> 4) & (CHUNKS_PER_REGION - 1), (worldZ >> 4) & (CHUNKS_PER_REGION - 1))) return false;
+            int index = (worldZ & (REGION_SIZE - 1)) * REGION_SIZE + (worldX & (REGION_SIZE - 1));
+            ByteBuffer data = region.data;
+            for (int i = 0; i < count; i++, index++) {
+                int color = data.getInt(COLOR_OFFSET + index * 4);
+                int height = data.getShort(HEIGHT_OFFSET + index * 2);
+                out[offset + i] = MinimapColors.shade(color, height - playerY);
+            }
+            return true;
+        }
+
+        /**
+         * Copies unshaded colours for a square of blocks lying inside a single region into out
+         * (row-major, {@code size} wide). Unexplored chunks are left untouched. Returns false if
+         * the region has never been written.
+         */
+        public boolean readColors(int blockX, int blockZ, int size, int[] out) {
+            Region region = region(blockX >> REGION_SHIFT, blockZ >> REGION_SHIFT, false);
+            if (region == null) return false;
+            ByteBuffer data = region.data;
+            int localX = blockX & (REGION_SIZE - 1), localZ = blockZ & (REGION_SIZE - 1);
+            for (int cz = 0; cz < size; cz += 16) {
+                for (int cx = 0; cx < size; cx += 16) {
+                    if (!region.isExplored((localX + cx) >> 4, (localZ + cz) >> 4)) continue;
+                    for (int z = cz; z < cz + 16; z++) {
+                        int index = (localZ + z) * REGION_SIZE + localX + cx;
+                        for (int x = cx; x < cx + 16; x++, index++) out[z * size + x] = data.getInt(COLOR_OFFSET + index * 4);
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Fills {@code count} pixels of row {@code z} of zoomed-out level {@code level} (1 and up, in
+         * pixels of that level) from the precomputed tiles, one lookup per tile crossed. Unexplored
+         * pixels are black.
+         */
+        public void sampleMipRow(int level, int x, int z, int count, int[] out, int offset) {
+            int tileZ = z >> MapTilePyramid.TILE_SHIFT;
+            int rowBase = (z & (MapTilePyramid.TILE_SIZE - 1)) << MapTilePyramid.TILE_SHIFT;
+            int i = 0;
+            while (i < count) {
+                int localX = (x + i) & (MapTilePyramid.TILE_SIZE - 1);
+                int n = Math.min(count - i, MapTilePyramid.TILE_SIZE - localX);
+                int[] tile = cachedMip(level, (x + i) >> MapTilePyramid.TILE_SHIFT, tileZ);
+                for (int k = 0; k < n; k++) {
+                    int color = tile != NO_MIP ? tile[rowBase + localX + k] : 0;
+                    out[offset + i + k] = (color >>> 24) != 0 ? color : 0xFF000000;
+                }
+                i += n;
+            }
+        }
+
+        private int[] cachedMip(int level, int tileX, int tileZ) {
+            long key = MapTilePyramid.key(level, tileX, tileZ);
+            int generation;
+            synchronized (mips) {
+                int[] tile = mips.get(key);
+                if (tile != null) return tile;
+                generation = mipGeneration;
+            }
+            int[] tile = readMip(level, tileX, tileZ);
+            if (tile == null) tile = NO_MIP;
+            synchronized (mips) {
+                if (generation == mipGeneration) {
+                    mips.put(key, tile);
+                    if (mips.size() > MAX_CACHED_MIPS) {
+                        Iterator<int[]> eldest = mips.values().iterator();
+                        eldest.next();
+                        eldest.remove();
+                    }
+                }
+            }
+            return tile;
+        }
+
+        /** Precomputed tile of a zoomed-out level (1 and up), or null if nothing was explored under it. */
+        public int[] readMip(int level, int tileX, int tileZ) {
+            Path file = mipFile(level, tileX, tileZ);
+            if (!Files.exists(file)) return null;
+            try {
+                int[] pixels = new int[MapTilePyramid.TILE_SIZE * MapTilePyramid.TILE_SIZE];
+                ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(pixels);
+                return pixels;
+            } catch (Exception e) {
+                LightCraftClient.LOGGER.error("Error reading map tile " + file, e);
+                return null;
+            }
+        }
+
+        /** Packed (x, z) coordinates of every region file of this world and dimension. */
+        public Set<Long> listRegions() {
+            Set<Long> result = new HashSet<>();
+            if (!Files.isDirectory(dir)) return result;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "r.*.lcmap")) {
+                for (Path file : files) {
+                    String[] parts = file.getFileName().toString().split("\\.");
+                    if (parts.length != 4) continue;
+                    try {
+                        result.add(pack(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                    } catch (NumberFormatException ignored) {}
+                }
+            } catch (IOException e) { LightCraftClient.LOGGER.error("Error listing map regions", e); }
+            return result;
+        }
+
+        private void flush() {
+            if (!pending.isEmpty()) writePending();
+            updateMips();
+        }
+
+        private void writePending() {
+            int[] colors = MinimapColors.table();
+            for (Iterator<Map.Entry<Long, long[]>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, long[]> e = it.next();
+                it.remove();
+                long key = e.getKey();
+                try {
+                    writeChunk((int) (key >> 32), (int) key, e.getValue(), colors);
+                } catch (Exception ex) {
+                    LightCraftClient.LOGGER.error("Error writing explored map", ex);
+                }
+            }
+            synchronized (this) {
+                for (Region region : regions.values()) region.force();
+            }
+        }
+
+        private void writeChunk(int chunkX, int chunkZ, long[] columns, int[] colors) {
+            Region region = region(chunkX >> 5, chunkZ >> 5, true);
+            if (region == null) return;
+            ByteBuffer data = region.data;
+            int baseX = (chunkX & (CHUNKS_PER_REGION - 1)) << 4;
+            int baseZ = (chunkZ & (CHUNKS_PER_REGION - 1)) << 4;
+            for (int lz = 0; lz < 16; lz++) {
+                int index = (baseZ + lz) * REGION_SIZE + baseX;
+                for (int lx = 0; lx < 16; lx++, index++) {
+                    long column = columns[(lz << 4) | lx];
+                    data.putInt(COLOR_OFFSET + index * 4, colors[MinimapColors.flatIndex(column)]);
+                    data.putShort(HEIGHT_OFFSET + index * 2, (short) (ChunkColumnCache.topY(column) + 1));
+                }
+            }
+            region.setExplored(chunkX & (CHUNKS_PER_REGION - 1), chunkZ & (CHUNKS_PER_REGION - 1));
+            region.dirty = true;
+            mipDirty.add(pack(chunkX >> 5, chunkZ >> 5));
+        }
+
+        // Rebuilds the ancestors of every region written since the last call, one level at a time
+        private void updateMips() {
+            if (!mipsChecked) {
+                // Regions from before mips existed, or whose mips were lost, get them once
+                mipsChecked = true;
+                for (long region : listRegions()) {
+                    if (!Files.exists(mipFile(1, (int) (region >> 32), (int) region))) mipDirty.add(region);
+                }
+            }
+            if (mipDirty.isEmpty()) return;
+            Set<Long> dirty = new HashSet<>(mipDirty);
+            mipDirty.clear();
+            int half = MapTilePyramid.TILE_SIZE / 2;
+            for (int level = 1; level <= MapTilePyramid.MAX_LEVEL; level++) {
+                Set<Long> parents = new HashSet<>();
+                for (long key : dirty) {
+                    int tileX = (int) (key >> 32), tileZ = (int) key;
+                    int[] pixels = null;
+                    int[] child = new int[MapTilePyramid.TILE_SIZE * MapTilePyramid.TILE_SIZE];
+                    for (int q = 0; q < 4; q++) {
+                        int cx = tileX * 2 + (q & 1), cz = tileZ * 2 + (q >> 1);
+                        int[] c;
+                        if (level == 1) {
+                            Arrays.fill(child, 0);
+                            c = readColors(cx << MapTilePyramid.TILE_SHIFT, cz << MapTilePyramid.TILE_SHIFT, MapTilePyramid.TILE_SIZE, child) ? child : null;
+                        } else {
+                            c = readMip(level - 1, cx, cz);
+                        }
+                        if (c == null) continue;
+                        if (pixels == null) pixels = new int[MapTilePyramid.TILE_SIZE * MapTilePyramid.TILE_SIZE];
+                        MapTilePyramid.downsample(c, pixels, (q & 1) * half, (q >> 1) * half);
+                    }
+                    writeMip(level, tileX, tileZ, pixels);
+                    parents.add(pack(tileX >> 1, tileZ >> 1));
+                }
+                dirty = parents;
+            }
+        }
+
+        // Replaced atomically so the world map never reads a half-written tile
+        private void writeMip(int level, int tileX, int tileZ, int[] pixels) {
+            Path file = mipFile(level, tileX, tileZ);
+            synchronized (mips) {
+                mips.remove(MapTilePyramid.key(level, tileX, tileZ));
+                mipGeneration++;
+            }
+            try {
+                if (pixels == null) {
+                    Files.deleteIfExists(file);
+                    return;
+                }
+                ByteBuffer data = ByteBuffer.allocate(pixels.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+                data.asIntBuffer().put(pixels);
+                Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.createDirectories(dir);
+                Files.write(tmp, data.array());
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) { LightCraftClient.LOGGER.error("Error writing map tile " + file, e); }
+        }
+
+        private Path mipFile(int level, int tileX, int tileZ) {
+            return dir.resolve("m." + level + "." + tileX + "." + tileZ + ".lcmip");
+        }
+
+        private synchronized Region region(int regionX, int regionZ, boolean create) {
+            if (closed) return null;
+            long key = pack(regionX, regionZ);
+            Region region = regions.get(key);
+            if (region != null) return region;
+            if (!create && missing.contains(key)) return null;
+
+            Path file = dir.resolve("r." + regionX + "." + regionZ + ".lcmap");
+            if (!create && !Files.exists(file)) {
+                missing.add(key);
+                return null;
+            }
+            try {
+                region = Region.open(file, regionX, regionZ);
+            } catch (IOException e) {
+                LightCraftClient.LOGGER.error("Error opening map region " + file, e);
+                missing.add(key);
+                return null;
+            }
+            missing.remove(key);
+            regions.put(key, region);
+            if (regions.size() > MAX_OPEN_REGIONS) {
+                Iterator<Region> eldest = regions.values().iterator();
+                eldest.next().close();
+                eldest.remove();
+            }
+            return region;
+        }
+
+        private void close() {
+            flush();
+            synchronized (this) {
+                closed = true;
+                for (Region region : regions.values()) region.close();
+                regions.clear();
+            }
+        }
+    }
+
+    private static final class Region {
+        private final FileChannel channel;
+        private final MappedByteBuffer mapped;
+        private final ByteBuffer data;
+        private boolean dirty = false;
+
+        private Region(FileChannel channel, MappedByteBuffer mapped) {
+            this.channel = channel;
+            this.mapped = mapped;
+            this.data = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        static Region open(Path file, int regionX, int regionZ) throws IOException {
+            Files.createDirectories(file.getParent());
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean fresh = channel.size() != FILE_SIZE;
+            Region region = new Region(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE));
+            ByteBuffer data = region.data;
+            if (fresh || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+                // Unknown or older layout: start the region over
+                for (int i = 0; i < HEADER_SIZE; i += 8) data.putLong(i, 0L);
+                data.putInt(0, MAGIC);
+                data.putInt(4, VERSION);
+                data.putInt(8, regionX);
+                data.putInt(12, regionZ);
+            }
+            return region;
+        }
+
+        boolean isExplored(int localChunkX, int localChunkZ) {
+            int bit = localChunkZ * CHUNKS_PER_REGION + localChunkX;
+            return (data.getLong(EXPLORED_OFFSET + (bit >>> 6) * 8) & (1L << bit)) != 0;
+        }
+
+        void setExplored(int localChunkX, int localChunkZ) {
+            int bit = localChunkZ * CHUNKS_PER_REGION + localChunkX;
+            int offset = EXPLORED_OFFSET + (bit >>> 6) * 8;
+            data.putLong(offset, data.getLong(offset) | (1L << bit));
+        }
+
+        void force() {
+            if (!dirty) return;
+            mapped.force();
+            dirty = false;
+        }
+
+        void close() {
+            try {
+                force();
+                channel.close();
+            } catch (IOException e) { LightCraftClient.LOGGER.error("Error closing map region", e); }
+        }
+    }
+}
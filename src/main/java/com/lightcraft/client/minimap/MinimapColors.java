@@ -0,0 +1,141 @@
+package com.lightcraft.client.minimap;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.lightcraft.client.LightCraftClient;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.MapColor;
+import net.minecraft.registry.Registries;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EmptyBlockView;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block state to minimap pixel lookup.
+ * The table holds three ABGR entries per raw state id (darker, level, brighter than the
+ * player), so rasterizing a column is a single array read. It is rebuilt on resource reload
+ * from the block map colours plus the overrides in {@code assets/lightcraft/minimap_palette.json}.
+ */
+public final class MinimapColors {
+    public static final int SHADES = 3;
+    private static final int VOID = 0xFF000000;
+    private static final int FALLBACK = 0x555555;
+    private static final int SHADE_AMOUNT = 20;
+    private static final Identifier PALETTE = Identifier.of(LightCraftClient.MOD_ID, "minimap_palette.json");
+
+    // Per-channel shading curves, indexed by the unshaded channel value
+    private static final int[] DARKEN = new int[256];
+    private static final int[] BRIGHTEN = new int[256];
+    static {
+        for (int i = 0; i < 256; i++) {
+            DARKEN[i] = Math.max(0, i - SHADE_AMOUNT);
+            BRIGHTEN[i] = Math.min(255, i + SHADE_AMOUNT);
+        }
+    }
+
+    private static volatile int[] table;
+
+    private MinimapColors() {}
+
+    /** Current lookup table; index with {@link #index(long, int)}. */
+    public static int[] table() {
+        int[] t = table;
+        if (t == null) {
+            t = build(Map.of());
+            table = t;
+        }
+        return t;
+    }
+
+    /** Replaces the lookup table, e.g. with a synthetic one when running outside the game. */
+    public static void install(int[] colors) { table = colors; }
+
+    /** Table slot for a packed cache column, shaded against the player's Y without branching. */
+    public static int index(long column, int playerY) {
+        int surfaceY = ChunkColumnCache.topY(column) + 1;
+        return ChunkColumnCache.stateId(column) * SHADES + Integer.signum(surfaceY - playerY) + 1;
+    }
+
+    /** Table slot of the unshaded colour, for callers that shade by other means. */
+    public static int flatIndex(long column) {
+        return ChunkColumnCache.stateId(column) * SHADES + 1;
+    }
+
+    /** ABGR pixel for a packed cache column. Safe to call off-thread. */
+    public static int columnColor(long column, int playerY) {
+        return table()[index(column, playerY)];
+    }
+
+    /** Applies height shading to an unshaded ABGR colour, such as one read back from the map store. */
+    public static int shade(int abgr, int heightDelta) {
+        if (heightDelta == 0) return abgr;
+        int[] curve = heightDelta < 0 ? DARKEN : BRIGHTEN;
+        return (abgr & 0xFF000000) | (curve[(abgr >> 16) & 0xFF] << 16) | (curve[(abgr >> 8) & 0xFF] << 8) | curve[abgr & 0xFF];
+    }
+
+    public static void reload(ResourceManager manager) {
+        Map<Block, Integer> palette = new HashMap<>();
+        // Lowest priority pack first, so resource packs can override individual entries
+        for (Resource resource : manager.getAllResources(PALETTE)) {
+            try (Reader reader = resource.getReader()) {
+                JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+                for (Map.Entry<String, JsonElement> e : json.entrySet()) {
+                    Identifier id = Identifier.tryParse(e.getKey());
+                    if (id == null || !Registries.BLOCK.containsId(id)) continue;
+                    palette.put(Registries.BLOCK.get(id), Integer.parseInt(e.getValue().getAsString().replace("#", ""), 16));
+                }
+            } catch (Exception e) { LightCraftClient.LOGGER.error("Error loading minimap palette", e); }
+        }
+        table = build(palette);
+    }
+
+    private static int[] build(Map<Block, Integer> palette) {
+        int count = Block.STATE_IDS.size();
+        int[] t = new int[count * SHADES];
+        for (int id = 0; id < count; id++) {
+            BlockState state = Block.STATE_IDS.get(id);
+            int i = id * SHADES;
+            if (state == null || state.isAir()) {
+                t[i] = t[i + 1] = t[i + 2] = VOID;
+                continue;
+            }
+            Integer override = palette.get(state.getBlock());
+            int color = 0;
+            if (override != null) color = override;
+            else {
+                // Map colors are fixed per state, so no live world is needed
+                MapColor mapColor = state.getMapColor(EmptyBlockView.INSTANCE, BlockPos.ORIGIN);
+                if (mapColor != null) color = mapColor.color;
+                if (color == 0) color = FALLBACK;
+            }
+            t[i] = shade(color, DARKEN);
+            t[i + 1] = shade(color, null);
+            t[i + 2] = shade(color, BRIGHTEN);
+        }
+        return t;
+    }
+
+    private static int shade(int rgb, int[] curve) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        if (curve != null) { r = curve[r]; g = curve[g]; b = curve[b]; }
+        return 0xFF000000 | (b << 16) | (g << 8) | r;
+    }
+
+    public static class ReloadListener implements SimpleSynchronousResourceReloadListener {
+        @Override
+        public Identifier getFabricId() { return Identifier.of(LightCraftClient.MOD_ID, "minimap_colors"); }
+
+        @Override
+        public void reload(ResourceManager manager) { MinimapColors.reload(manager); }
+    }
+}
@@ -0,0 +1,144 @@
+package com.lightcraft.client.minimap;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Toroidal pixel buffer behind the minimap texture.
+ * A world column (x, z) always lives at pixel (x mod size, z mod size), so when the
+ * player moves one block only the newly exposed row/column is sampled again.
+ */
+public class MinimapRaster {
+    /**
+     * Writes {@code count} ABGR pixels for the row at worldZ, starting at worldX, into out[offset...].
+     * Full rebuilds may call this from several threads at once.
+     */
+    public interface ColumnSampler { void sampleRow(int worldX, int worldZ, int count, int[] out, int offset); }
+    public interface DirtySink { void markDirty(int x, int y, int w, int h); }
+
+    private final int size;
+    private final int mask;
+    private final int[] pixels;
+    private ForkJoinPool pool;
+
+    // World coordinates of the top-left logical pixel
+    private int originX, originZ;
+    private boolean valid = false;
+
+    public MinimapRaster(int size) {
+        if (Integer.bitCount(size) != 1) throw new IllegalArgumentException("Raster size must be a power of two: " + size);
+        this.size = size;
+        this.mask = size - 1;
+        this.pixels = new int[size * size];
+    }
+
+    /** Re-centres the raster on (centerX, centerZ), sampling only columns that scrolled into view. */
+    public void moveTo(int centerX, int centerZ, ColumnSampler sampler, DirtySink sink) {
+        int newX = centerX - size / 2;
+        int newZ = centerZ - size / 2;
+        int dx = newX - originX;
+        int dz = newZ - originZ;
+
+        if (!valid || Math.abs(dx) >= size || Math.abs(dz) >= size) {
+            originX = newX; originZ = newZ;
+            if (pool != null) {
+                pool.invoke(new FillTask(newX, newZ, size, size, sampler));
+                markDirty(newX, newZ, size, size, sink);
+            } else {
+                fill(newX, newZ, size, size, sampler, sink);
+            }
+            valid = true;
+            return;
+        }
+        if (dx == 0 && dz == 0) return;
+
+        originX = newX; originZ = newZ;
+        // Exposed columns span the full new height; exposed rows skip those columns
+        if (dx > 0) fill(newX + size - dx, newZ, dx, size, sampler, sink);
+        else if (dx < 0) fill(newX, newZ, -dx, size, sampler, sink);
+
+        int keptX = dx > 0 ? newX : newX - dx;
+        int keptW = size - Math.abs(dx);
+        if (dz > 0) fill(keptX, newZ + size - dz, keptW, dz, sampler, sink);
+        else if (dz < 0) fill(keptX, newZ, keptW, -dz, sampler, sink);
+    }
+
+    /** Re-samples {@code count} logical rows starting at {@code firstRow}, wrapping at the bottom. */
+    public void refreshRows(int firstRow, int count, ColumnSampler sampler, DirtySink sink) {
+        if (!valid) return;
+        for (int i = 0; i < count; i++) {
+            int row = (firstRow + i) % size;
+            fill(originX, originZ + row, size, 1, sampler, sink);
+        }
+    }
+
+    /** Re-samples the part of a world-space rectangle that is currently in view. */
+    public void refreshRect(int worldX, int worldZ, int w, int h, ColumnSampler sampler, DirtySink sink) {
+        if (!valid) return;
+        int x0 = Math.max(worldX, originX), z0 = Math.max(worldZ, originZ);
+        int x1 = Math.min(worldX + w, originX + size), z1 = Math.min(worldZ + h, originZ + size);
+        if (x0 < x1 && z0 < z1) fill(x0, z0, x1 - x0, z1 - z0, sampler, sink);
+    }
+
+    /** Full rebuilds are split across this pool; rows are independent so no locking is needed. */
+    public void setParallelism(ForkJoinPool pool) { this.pool = pool; }
+
+    public void invalidate() { valid = false; }
+    public boolean isValid() { return valid; }
+
+    private void fill(int worldX, int worldZ, int w, int h, ColumnSampler sampler, DirtySink sink) {
+        fillRows(worldX, worldZ, w, h, sampler);
+        markDirty(worldX, worldZ, w, h, sink);
+    }
+
+    private void fillRows(int worldX, int worldZ, int w, int h, ColumnSampler sampler) {
+        int px = worldX & mask;
+        int w1 = Math.min(w, size - px);
+        for (int z = worldZ; z < worldZ + h; z++) {
+            int rowBase = (z & mask) * size;
+            sampler.sampleRow(worldX, z, w1, pixels, rowBase + px);
+            if (w1 < w) sampler.sampleRow(worldX + w1, z, w - w1, pixels, rowBase);
+        }
+    }
+
+    private class FillTask extends RecursiveAction {
+        private static final int MIN_ROWS = 16;
+        private final int worldX, worldZ, w, h;
+        private final ColumnSampler sampler;
+
+        FillTask(int worldX, int worldZ, int w, int h, ColumnSampler sampler) {
+            this.worldX = worldX; this.worldZ = worldZ; this.w = w; this.h = h; this.sampler = sampler;
+        }
+
+        @Override
+        protected void compute() {
+            if (h <= MIN_ROWS) {
+                fillRows(worldX, worldZ, w, h, sampler);
+                return;
+            }
+            int half = h / 2;
+            invokeAll(new FillTask(worldX, worldZ, w, half, sampler),
+                      new FillTask(worldX, worldZ + half, w, h - half, sampler));
+        }
+    }
+
+    // Splits a world-space rectangle into at most four physical rectangles at the wrap seams
+    private void markDirty(int worldX, int worldZ, int w, int h, DirtySink sink) {
+        if (sink == null) return;
+        int px = worldX & mask, pz = worldZ & mask;
+        int w1 = Math.min(w, size - px), h1 = Math.min(h, size - pz);
+        sink.markDirty(px, pz, w1, h1);
+        if (w1 < w) sink.markDirty(0, pz, w - w1, h1);
+        if (h1 < h) sink.markDirty(px, 0, w1, h - h1);
+        if (w1 < w && h1 < h) sink.markDirty(0, 0, w - w1, h - h1);
+    }
+
+    public int getSize() { return size; }
+    public int[] getPixels() { return pixels; }
+    public int getPixel(int x, int y) { return pixels[y * size + x]; }
+
+    /** Physical column holding the left edge of the visible map. */
+    public int getOriginU() { return originX & mask; }
+    /** Physical row holding the top edge of the visible map. */
+    public int getOriginV() { return originZ & mask; }
+}
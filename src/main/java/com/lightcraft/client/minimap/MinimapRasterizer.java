@@ -0,0 +1,125 @@
+package com.lightcraft.client.minimap;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs minimap rasterization on a worker thread.
+ * The worker owns the {@link MinimapRaster} (the back buffer) and copies the regions each
+ * job touched into a front buffer; the render thread only drains that front buffer into the
+ * texture. A job that has not started yet is cancelled when a newer one is submitted.
+ */
+public class MinimapRasterizer {
+    private final MinimapRaster raster;
+    private final int size;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LightCraft Minimap");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Worker-only state
+    private final DirtyRegion jobDirty = new DirtyRegion();
+    private int rasterLevel = -1;
+
+    // Guarded by front
+    private final int[] front;
+    private final DirtyRegion frontDirty = new DirtyRegion();
+    private int frontOriginU, frontOriginV;
+
+    // Render-thread state
+    private int drainedOriginU, drainedOriginV;
+    private volatile boolean resetRequested = false;
+    // Chunks to re-sample; kept across cancelled jobs, drained by the next one that runs
+    private final LongArrayList refreshChunks = new LongArrayList();
+    private Future<?> pending;
+
+    public MinimapRasterizer(int size) {
+        this.size = size;
+        this.raster = new MinimapRaster(size);
+        this.front = new int[size * size];
+        // Teleports and dimension changes rebuild the whole raster; spread that over all cores
+        raster.setParallelism(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Queues a raster update. Called from the render thread. The centre is in pixels of
+     * {@code level} (blocks shifted right by it); changing the level rebuilds the raster.
+     */
+    public void submit(ColumnSnapshot snapshot, MapTileStore.Session explored, int level, boolean slopeShading,
+                       int centerX, int centerZ, int playerY, int refreshRow, int refreshCount) {
+        if (pending != null) pending.cancel(false);
+        pending = worker.submit(() -> run(snapshot, explored, level, slopeShading, centerX, centerZ, playerY, refreshRow, refreshCount));
+    }
+
+    /** Re-samples the given chunks (packed chunk positions) in the next job, e.g. after they were sliced again. */
+    public void refreshChunks(LongArrayList chunks) {
+        if (chunks.isEmpty()) return;
+        synchronized (refreshChunks) { refreshChunks.addAll(chunks); }
+    }
+
+    /** Forces the next job to rebuild from scratch, e.g. after a world change. */
+    public void reset() { resetRequested = true; }
+
+    private void run(ColumnSnapshot snapshot, MapTileStore.Session explored, int level, boolean slopeShading,
+                     int centerX, int centerZ, int playerY, int refreshRow, int refreshCount) {
+        if (resetRequested || level != rasterLevel) {
+            resetRequested = false;
+            rasterLevel = level;
+            raster.invalidate();
+        }
+        SnapshotSampler sampler = new SnapshotSampler(snapshot, explored, playerY, level, slopeShading);
+        jobDirty.clear();
+        raster.moveTo(centerX, centerZ, sampler, jobDirty);
+        if (refreshCount > 0) raster.refreshRows(refreshRow, refreshCount, sampler, jobDirty);
+        long[] chunks;
+        synchronized (refreshChunks) {
+            chunks = refreshChunks.toLongArray();
+            refreshChunks.clear();
+        }
+        // One extra pixel east and south, whose slope shading reads this chunk as a neighbour
+        int chunkPixels = Math.max(1, 16 >> level);
+        for (long chunk : chunks) {
+            int cx = (int) chunk, cz = (int) (chunk >> 32);
+            raster.refreshRect((cx << 4) >> level, (cz << 4) >> level, chunkPixels + 1, chunkPixels + 1, sampler, jobDirty);
+        }
+        if (!jobDirty.isEmpty()) publish();
+    }
+
+    private void publish() {
+        int[] back = raster.getPixels();
+        synchronized (front) {
+            jobDirty.forEach((x, y, w, h) -> {
+                for (int row = y; row < y + h; row++) {
+                    System.arraycopy(back, row * size + x, front, row * size + x, w);
+                }
+                frontDirty.markDirty(x, y, w, h);
+            });
+            frontOriginU = raster.getOriginU();
+            frontOriginV = raster.getOriginV();
+        }
+    }
+
+    /**
+     * Hands every region finished since the last drain to {@code sink}, which may read
+     * {@link #getFrontPixels()} while it runs. Returns false if nothing changed.
+     */
+    public boolean drain(MinimapRaster.DirtySink sink) {
+        synchronized (front) {
+            if (frontDirty.isEmpty()) return false;
+            frontDirty.forEach(sink);
+            frontDirty.clear();
+            drainedOriginU = frontOriginU;
+            drainedOriginV = frontOriginV;
+            return true;
+        }
+    }
+
+    public int[] getFrontPixels() { return front; }
+    /** Raster origin matching the pixels handed out by the last successful {@link #drain}. */
+    public int getDrainedOriginU() { return drainedOriginU; }
+    public int getDrainedOriginV() { return drainedOriginV; }
+}
@@ -0,0 +1,226 @@
+package com.lightcraft.client.minimap;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cave/Nether counterpart of the surface columns in {@link ChunkColumnCache}: the first non-air block
+ * at or below a start Y, packed the same way so the rasterizer and colour table work unchanged.
+ * The main thread only copies the block states of the sections a slice needs (a palette plus a
+ * packed array each); a worker thread does the scanning and hands finished chunks back.
+ * Each copied section gets a bitmask per column of which blocks are not air, built once on the
+ * worker. Sections whose palette is all air are skipped without a copy or a lookup, and all-solid
+ * ones end the scan immediately, so re-slicing at another Y only re-runs bit operations.
+ * Block updates drop the copy of their section; until a chunk is re-sliced its previous result
+ * stays in use. Published column arrays are never mutated.
+ */
+class SliceColumnCache {
+    /** How far below the start Y the scan looks before giving up on a column. */
+    static final int MAX_DEPTH = 64;
+    // Chunks queued per snapshot; entering slice mode spreads the section copies over a few ticks
+    private static final int CHUNKS_PER_SNAPSHOT = 48;
+    private static final int MAX_FLUID_DEPTH = 255;
+    // Section markers; real masks are 256 entries long
+    private static final short[] EMPTY = new short[0];
+    private static final short[] FULL = new short[0];
+
+    private static final class Section {
+        // Private copy, safe to read on the worker; null for an all-air section
+        final PalettedContainer<BlockState> states;
+        // Worker only, built on first use
+        short[] mask;
+
+        Section(ChunkSection section) {
+            if (section.isEmpty()) {
+                states = null;
+                mask = EMPTY;
+            } else {
+                states = section.getBlockStateContainer().copy();
+            }
+        }
+    }
+
+    // Main thread only
+    private static final class Slices {
+        final long key;
+        final int bottomSection;
+        final Section[] sections;
+        long[] columns;
+        int startY;
+        boolean stale = true;
+        boolean queued = false;
+        int generation = 0;
+
+        Slices(long key, WorldChunk chunk) {
+            this.key = key;
+            this.bottomSection = chunk.getBottomSectionCoord();
+            this.sections = new Section[chunk.getSectionArray().length];
+        }
+    }
+
+    private record Result(Slices slices, int generation, int startY, long[] columns) {}
+
+    private final Long2ObjectOpenHashMap<Slices> chunks = new Long2ObjectOpenHashMap<>();
+    private final ConcurrentLinkedQueue<Result> results = new ConcurrentLinkedQueue<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LightCraft Minimap Slices");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile int wantedStartY;
+    private int budget;
+
+    /**
+     * Starts a snapshot pass: takes over finished slices, adding their chunk keys to {@code sliced},
+     * and resets the queueing budget for {@link #columns}.
+     */
+    void begin(int startY, LongArrayList sliced) {
+        wantedStartY = startY;
+        budget = CHUNKS_PER_SNAPSHOT;
+        Result result;
+        while ((result = results.poll()) != null) {
+            Slices slices = result.slices();
+            if (chunks.get(slices.key) != slices) continue;
+            slices.queued = false;
+            // Discarded: a block changed while it was scanned, or the worker skipped an old start Y
+            if (result.columns() == null || result.generation() != slices.generation) continue;
+            slices.columns = result.columns();
+            slices.startY = result.startY();
+            slices.stale = false;
+            sliced.add(slices.key);
+        }
+    }
+
+    /**
+     * Slice columns of a loaded chunk, with reduced levels. If they are out of date for
+     * {@code startY} the chunk is queued for the worker and the previous result (or null) is returned.
+     */
+    long[] columns(WorldChunk chunk, int startY) {
+        long key = chunk.getPos().toLong();
+        Slices slices = chunks.get(key);
+        if (slices == null) {
+            slices = new Slices(key, chunk);
+            chunks.put(key, slices);
+        }
+        if ((slices.stale || slices.startY != startY) && !slices.queued && budget > 0) {
+            budget--;
+            queue(slices, chunk, startY);
+        }
+        return slices.columns;
+    }
+
+    private void queue(Slices slices, WorldChunk chunk, int startY) {
+        ChunkSection[] worldSections = chunk.getSectionArray();
+        // Copy just the sections the scan can reach
+        int top = Math.min(startY, chunk.getTopY() - 1), limit = Math.max(chunk.getBottomY(), startY - MAX_DEPTH);
+        for (int y = top & ~15; y >= (limit & ~15); y -= 16) {
+            int index = (y >> 4) - slices.bottomSection;
+            if (slices.sections[index] == null) slices.sections[index] = new Section(worldSections[index]);
+        }
+        Section[] sections = slices.sections.clone();
+        int generation = slices.generation;
+        int bottomY = chunk.getBottomY(), topY = chunk.getTopY();
+        slices.queued = true;
+        worker.execute(() -> {
+            long[] columns = null;
+            if (startY == wantedStartY) {
+                columns = new long[ChunkColumnCache.PACKED_LENGTH];
+                for (int lz = 0; lz < 16; lz++) {
+                    for (int lx = 0; lx < 16; lx++) {
+                        columns[(lz << 4) | lx] = sampleColumn(sections, slices.bottomSection, bottomY, topY, lx, lz, startY);
+                    }
+                }
+                ChunkColumnCache.buildLevels(columns);
+            }
+            results.add(new Result(slices, generation, startY, columns));
+        });
+    }
+
+    void onBlockChanged(BlockPos pos) {
+        Slices slices = chunks.get(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4));
+        if (slices == null) return;
+        slices.stale = true;
+        slices.generation++;
+        int index = (pos.getY() >> 4) - slices.bottomSection;
+        if (index >= 0 && index < slices.sections.length) slices.sections[index] = null;
+    }
+
+    void remove(int chunkX, int chunkZ) {
+        chunks.remove(ChunkPos.toLong(chunkX, chunkZ));
+    }
+
+    void clear() {
+        chunks.clear();
+        results.clear();
+    }
+
+    // Worker thread from here on
+
+    private static long sampleColumn(Section[] sections, int bottomSection, int bottomY, int topY, int lx, int lz, int startY) {
+        int limit = Math.max(bottomY, startY - MAX_DEPTH);
+        int column = (lz << 4) | lx;
+        int y = Math.min(startY, topY - 1);
+        while (y >= limit) {
+            Section section = sections[(y >> 4) - bottomSection];
+            short[] mask = section.mask;
+            if (mask == null) mask = section.mask = buildMask(section.states);
+            if (mask == FULL) return hit(sections, bottomSection, lx, y, lz, limit);
+            if (mask != EMPTY) {
+                // Non-air blocks of this column at or below y within the section
+                int bits = (mask[column] & 0xFFFF) & ((2 << (y & 15)) - 1);
+                if (bits != 0) {
+                    y = (y & ~15) | (31 - Integer.numberOfLeadingZeros(bits));
+                    return y >= limit ? hit(sections, bottomSection, lx, y, lz, limit) : ChunkColumnCache.pack(limit, 0, 0);
+                }
+            }
+            y = (y & ~15) - 1;
+        }
+        // Nothing within reach: drawn as void
+        return ChunkColumnCache.pack(limit, 0, 0);
+    }
+
+    private static long hit(Section[] sections, int bottomSection, int lx, int y, int lz, int limit) {
+        BlockState state = state(sections, bottomSection, lx, y, lz);
+        int fluidDepth = 0;
+        if (!state.getFluidState().isEmpty()) {
+            int scanY = y;
+            while (fluidDepth < MAX_FLUID_DEPTH && scanY > limit
+                    && !state(sections, bottomSection, lx, scanY, lz).getFluidState().isEmpty()) {
+                fluidDepth++;
+                scanY--;
+            }
+        }
+        return ChunkColumnCache.pack(y, Block.getRawIdFromState(state), fluidDepth);
+    }
+
+    private static BlockState state(Section[] sections, int bottomSection, int lx, int y, int lz) {
+        PalettedContainer<BlockState> states = sections[(y >> 4) - bottomSection].states;
+        return states != null ? states.get(lx, y & 15, lz) : Blocks.AIR.getDefaultState();
+    }
+
+    // Bit y of entry (z << 4) | x is set when that block is not air
+    private static short[] buildMask(PalettedContainer<BlockState> states) {
+        // The palette can only over-report, so no air in it means no air in the section
+        if (!states.hasAny(BlockState::isAir)) return FULL;
+        short[] mask = new short[256];
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (!states.get(x, y, z).isAir()) mask[(z << 4) | x] |= (short) (1 << y);
+                }
+            }
+        }
+        return mask;
+    }
+}
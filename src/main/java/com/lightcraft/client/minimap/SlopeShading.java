@@ -0,0 +1,75 @@
+package com.lightcraft.client.minimap;
+
+import com.lightcraft.client.LightCraftClient;
+
+/**
+ * Slope shading for minimap pixels: each pixel is brightened or darkened by how much higher it is
+ * than its west and north neighbours, so hillsides read as lit from the north-west.
+ * Heights are a packed row-major {@code int[]} with a one-pixel border to the west and north;
+ * {@link #NONE} marks unknown heights (unloaded chunks), which never add slope.
+ * Everything is integer arithmetic, so the {@code jdk.incubator.vector} kernel (used when the JVM
+ * was started with {@code --add-modules jdk.incubator.vector}) gives exactly the scalar result.
+ */
+public final class SlopeShading {
+    /** Height of a pixel whose terrain is not known. */
+    public static final int NONE = Integer.MIN_VALUE;
+    // Slope is clamped to +-MAX_SLOPE blocks and scales channels by STEP/256 per block
+    static final int MAX_SLOPE = 8;
+    static final int STEP = 10;
+
+    // Null unless the vector kernel (src/vector) loaded
+    private static final Kernel VECTOR = loadVector();
+
+    /** A shading kernel with the signature of {@link #apply}; implemented by the vector source set. */
+    interface Kernel {
+        int lanes();
+
+        void apply(int[] heights, int stride, int origin, int[] colors, int offset, int count);
+    }
+
+    private SlopeShading() {}
+
+    /** Whether {@link #apply} runs the vector kernel in this JVM. */
+    public static boolean isVectorized() { return VECTOR != null; }
+
+    /**
+     * Shades {@code count} ABGR pixels of {@code colors} from {@code offset} in place. The pixel
+     * heights start at {@code heights[origin]}; west neighbours are at {@code origin - 1} and north
+     * neighbours one {@code stride} earlier.
+     */
+    public static void apply(int[] heights, int stride, int origin, int[] colors, int offset, int count) {
+        if (VECTOR != null) VECTOR.apply(heights, stride, origin, colors, offset, count);
+        else applyScalar(heights, stride, origin, colors, offset, count);
+    }
+
+    /** The reference kernel; {@link #apply} matches it bit for bit. */
+    public static void applyScalar(int[] heights, int stride, int origin, int[] colors, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            int h = heights[origin + i], w = heights[origin + i - 1], n = heights[origin + i - stride];
+            int slope = (h == NONE || w == NONE ? 0 : h - w) + (h == NONE || n == NONE ? 0 : h - n);
+            colors[offset + i] = shade(colors[offset + i], slope);
+        }
+    }
+
+    static int shade(int abgr, int slope) {
+        int factor = 256 + Math.max(-MAX_SLOPE, Math.min(MAX_SLOPE, slope)) * STEP;
+        int r = Math.min(255, ((abgr & 0xFF) * factor) >>> 8);
+        int g = Math.min(255, (((abgr >>> 8) & 0xFF) * factor) >>> 8);
+        int b = Math.min(255, (((abgr >>> 16) & 0xFF) * factor) >>> 8);
+        return (abgr & 0xFF000000) | (b << 16) | (g << 8) | r;
+    }
+
+    /** The vector kernel, or null if the incubator module is missing or too narrow to help. */
+    static Kernel loadVector() {
+        // The incubator module is only resolved when asked for on the command line
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            Kernel kernel = (Kernel) Class.forName(SlopeShading.class.getPackageName() + ".SlopeShadingVector")
+                .getDeclaredConstructor().newInstance();
+            return kernel.lanes() >= 4 ? kernel : null;
+        } catch (Throwable t) {
+            LightCraftClient.LOGGER.warn("Vector API unavailable, minimap shading stays scalar", t);
+            return null;
+        }
+    }
+}
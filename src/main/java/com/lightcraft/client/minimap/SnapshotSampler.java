@@ -0,0 +1,103 @@
+package com.lightcraft.client.minimap;
+
+import java.util.Arrays;
+
+/**
+ * Stateless column sampler over a {@link ColumnSnapshot}; safe for parallel rebuilds.
+ * Coordinates are in pixels of the given level, i.e. blocks shifted right by {@code level}, and
+ * each pixel is one read of that level's reduced cells. Chunks that are not loaded fall back to
+ * the explored-map store when one is open: its blocks at level 0, and the matching precomputed
+ * mip level when zoomed out, so distant terrain is filtered rather than point-sampled.
+ * With slope shading, loaded pixels use the unshaded colour and {@link SlopeShading} then shades
+ * the row against the heights of its west and north neighbours; explored-map pixels keep their own shading.
+ */
+public class SnapshotSampler implements MinimapRaster.ColumnSampler {
+    private final ColumnSnapshot snapshot;
+    private final MapTileStore.Session explored;
+    private final int playerY;
+    private final int level;
+    private final boolean slopeShading;
+    // Two height rows (north, then current) of up to a full raster row plus the west border
+    private static final ThreadLocal<int[]> HEIGHTS = ThreadLocal.withInitial(() -> new int[0]);
+
+    public SnapshotSampler(ColumnSnapshot snapshot, MapTileStore.Session explored, int playerY, int level) {
+        this(snapshot, explored, playerY, level, false);
+    }
+
+    public SnapshotSampler(ColumnSnapshot snapshot, MapTileStore.Session explored, int playerY, int level, boolean slopeShading) {
+        this.snapshot = snapshot;
+        this.explored = explored;
+        this.playerY = playerY;
+        this.level = level;
+        this.slopeShading = slopeShading;
+    }
+
+    @Override
+    public void sampleRow(int worldX, int worldZ, int count, int[] out, int offset) {
+        if (!slopeShading) {
+            sampleColors(worldX, worldZ, count, out, offset);
+            return;
+        }
+        int stride = count + 1;
+        int[] heights = HEIGHTS.get();
+        if (heights.length < 2 * stride) HEIGHTS.set(heights = new int[2 * stride]);
+        sampleHeights(worldX - 1, worldZ - 1, stride, heights, 0);
+        sampleHeights(worldX - 1, worldZ, stride, heights, stride);
+        sampleColors(worldX, worldZ, count, out, offset);
+        SlopeShading.apply(heights, stride, stride + 1, out, offset, count);
+    }
+
+    // Top Y of each pixel in the row, or SlopeShading.NONE where the chunk is not loaded
+    private void sampleHeights(int worldX, int worldZ, int count, int[] out, int offset) {
+        int shift = 4 - level, mask = (1 << shift) - 1;
+        int end = worldX + count;
+        int rowBase = ChunkColumnCache.levelOffset(level) + ((worldZ & mask) << shift);
+        int x = worldX;
+        while (x < end) {
+            int chunkX = x >> shift;
+            int runEnd = Math.min(end, (chunkX + 1) << shift);
+            long[] columns = snapshot.getColumns(chunkX, worldZ >> shift);
+            if (columns == null) {
+                Arrays.fill(out, offset, offset + (runEnd - x), SlopeShading.NONE);
+                offset += runEnd - x;
+                x = runEnd;
+                continue;
+            }
+            for (; x < runEnd; x++) out[offset++] = ChunkColumnCache.topY(columns[rowBase | (x & mask)]);
+        }
+    }
+
+    private void sampleColors(int worldX, int worldZ, int count, int[] out, int offset) {
+        // Pixels per chunk edge at this level
+        int shift = 4 - level, mask = (1 << shift) - 1;
+        int end = worldX + count;
+        int rowBase = ChunkColumnCache.levelOffset(level) + ((worldZ & mask) << shift);
+        int[] colors = MinimapColors.table();
+        int x = worldX;
+        while (x < end) {
+            int chunkX = x >> shift;
+            int runEnd = Math.min(end, (chunkX + 1) << shift);
+            long[] columns = snapshot.getColumns(chunkX, worldZ >> shift);
+            if (columns == null) {
+                if (level > 0 && explored != null) {
+                    // Zoomed out, a whole run of unloaded chunks is one read of the matching mip level
+                    while (runEnd < end && snapshot.getColumns(runEnd >> shift, worldZ >> shift) == null) runEnd = Math.min(end, runEnd + (1 << shift));
+                    explored.sampleMipRow(level, x, worldZ, runEnd - x, out, offset);
+                } else if (explored == null || !explored.sampleRow(x, worldZ, runEnd - x, out, offset, playerY)) {
+                    // Unloaded chunk: one stored run or one black run, never a per-pixel probe
+                    Arrays.fill(out, offset, offset + (runEnd - x), 0xFF000000);
+                }
+                offset += runEnd - x;
+                x = runEnd;
+                continue;
+            }
+            if (slopeShading) {
+                for (; x < runEnd; x++) out[offset++] = colors[MinimapColors.flatIndex(columns[rowBase | (x & mask)])];
+            } else {
+                for (; x < runEnd; x++) {
+                    out[offset++] = colors[MinimapColors.index(columns[rowBase | (x & mask)], playerY)];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.lightcraft.client.minimap;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntHeapPriorityQueue;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.client.render.Frustum;
+import net.minecraft.util.math.Box;
+
+/**
+ * Uniform grid over the enabled rows of a {@link WaypointTable}, bucketed by 64x64 block cells.
+ * Queries only visit cells that can contain a match, so their cost follows the number of
+ * nearby waypoints rather than the size of the whole set. Distances are horizontal (x/z);
+ * beams and markers span the full world height. Main thread only.
+ */
+public class WaypointIndex implements WaypointTable.RowListener {
+    private static final int CELL_SHIFT = 6;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+    private static final double MIN_Y = -64, MAX_Y = 320;
+
+    private final WaypointTable table;
+    private final Long2ObjectOpenHashMap<IntArrayList> cells = new Long2ObjectOpenHashMap<>();
+    private int size = 0;
+    // Occupied cell bounds; nearest-N stops once its rings cover them
+    private int minCellX, minCellZ, maxCellX, maxCellZ;
+
+    public WaypointIndex(WaypointTable table) {
+        this.table = table;
+    }
+
+    public void clear() {
+        cells.clear();
+        size = 0;
+    }
+
+    public void add(int row) {
+        int cx = table.x(row) >> CELL_SHIFT, cz = table.z(row) >> CELL_SHIFT;
+        cells.computeIfAbsent(key(cx, cz), k -> new IntArrayList()).add(row);
+        if (size++ == 0) {
+            minCellX = maxCellX = cx;
+            minCellZ = maxCellZ = cz;
+        } else {
+            minCellX = Math.min(minCellX, cx); maxCellX = Math.max(maxCellX, cx);
+            minCellZ = Math.min(minCellZ, cz); maxCellZ = Math.max(maxCellZ, cz);
+        }
+    }
+
+    /** Call before the row is removed from the table, while its position is still readable. */
+    public void remove(int row) {
+        long key = key(table.x(row) >> CELL_SHIFT, table.z(row) >> CELL_SHIFT);
+        IntArrayList cell = cells.get(key);
+        if (cell == null) return;
+        int i = cell.indexOf(row);
+        if (i < 0) return;
+        cell.removeInt(i);
+        size--;
+        if (cell.isEmpty()) cells.remove(key);
+    }
+
+    // The moved row's data is already at 'to'; disabled rows are simply not found
+    @Override
+    public void onRowMoved(int from, int to) {
+        IntArrayList cell = cells.get(key(table.x(to) >> CELL_SHIFT, table.z(to) >> CELL_SHIFT));
+        if (cell == null) return;
+        int i = cell.indexOf(from);
+        if (i >= 0) cell.set(i, to);
+    }
+
+    public int size() { return size; }
+
+    /** Replaces {@code out}'s contents with the rows within {@code radius} blocks of (x, z). */
+    public void findInRadius(double x, double z, double radius, IntArrayList out) {
+        findVisible(null, x, z, radius, out);
+    }
+
+    /** Replaces {@code out}'s contents with up to {@code count} rows closest to (x, z), nearest first. */
+    public void findNearest(double x, double z, int count, IntArrayList out) {
+        out.clear();
+        if (size == 0 || count <= 0) return;
+        // Max-heap of the best candidates so far
+        IntHeapPriorityQueue best = new IntHeapPriorityQueue(count + 1,
+            (a, b) -> Double.compare(distanceSq(b, x, z), distanceSq(a, x, z)));
+        int ox = floorCell(x), oz = floorCell(z);
+        int maxRing = Math.max(Math.max(Math.abs(ox - minCellX), Math.abs(maxCellX - ox)),
+                               Math.max(Math.abs(oz - minCellZ), Math.abs(maxCellZ - oz)));
+        long visited = 0;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Far from everything the rings are mostly empty; scanning every cell is cheaper then
+            visited += ring == 0 ? 1 : 8L * ring;
+            if (visited > 2L * cells.size()) {
+                best.clear();
+                for (IntArrayList cell : cells.values()) offer(best, cell, count);
+                break;
+            }
+            if (best.size() == count) {
+                // Everything in this ring is at least (ring - 1) whole cells away
+                double reach = (ring - 1) * (double) CELL_SIZE;
+                if (reach > 0 && reach * reach > distanceSq(best.firstInt(), x, z)) break;
+            }
+            for (int cz = oz - ring; cz <= oz + ring; cz++) {
+                boolean edgeRow = cz == oz - ring || cz == oz + ring;
+                for (int cx = ox - ring; cx <= ox + ring; cx += edgeRow ? 1 : 2 * ring) {
+                    IntArrayList cell = cells.get(key(cx, cz));
+                    if (cell != null) offer(best, cell, count);
+                    if (ring == 0) break;
+                }
+            }
+        }
+        // The heap pops farthest first
+        out.size(best.size());
+        for (int i = out.size() - 1; i >= 0; i--) out.set(i, best.dequeueInt());
+    }
+
+    private static void offer(IntHeapPriorityQueue best, IntArrayList cell, int count) {
+        for (int i = 0; i < cell.size(); i++) {
+            best.enqueue(cell.getInt(i));
+            if (best.size() > count) best.dequeueInt();
+        }
+    }
+
+    /**
+     * Replaces {@code out}'s contents with the rows within {@code maxDistance} of (x, z) whose
+     * full-height column is inside the frustum (any, if null). Whole cells are rejected before their
+     * waypoints are looked at.
+     */
+    public void findVisible(Frustum frustum, double x, double z, double maxDistance, IntArrayList out) {
+        out.clear();
+        if (size == 0) return;
+        int minX = Math.max(floorCell(x - maxDistance), minCellX), maxX = Math.min(floorCell(x + maxDistance), maxCellX);
+        int minZ = Math.max(floorCell(z - maxDistance), minCellZ), maxZ = Math.min(floorCell(z + maxDistance), maxCellZ);
+        if (minX > maxX || minZ > maxZ) return;
+        double r2 = maxDistance * maxDistance;
+        // Walk whichever is smaller: the cells in range or the occupied cells
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) <= cells.size()) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                for (int cx = minX; cx <= maxX; cx++) {
+                    IntArrayList cell = cells.get(key(cx, cz));
+                    if (cell != null) collectVisible(cell, cx, cz, frustum, x, z, r2, out);
+                }
+            }
+        } else {
+            for (Long2ObjectMap.Entry<IntArrayList> entry : Long2ObjectMaps.fastIterable(cells)) {
+                long key = entry.getLongKey();
+                int cx = (int) (key >> 32), cz = (int) key;
+                if (cx < minX || cx > maxX || cz < minZ || cz > maxZ) continue;
+                collectVisible(entry.getValue(), cx, cz, frustum, x, z, r2, out);
+            }
+        }
+    }
+
+    private void collectVisible(IntArrayList cell, int cx, int cz, Frustum frustum,
+                                double x, double z, double r2, IntArrayList out) {
+        double x0 = cx << CELL_SHIFT, z0 = cz << CELL_SHIFT;
+        if (frustum != null && !frustum.isVisible(new Box(x0, MIN_Y, z0, x0 + CELL_SIZE, MAX_Y, z0 + CELL_SIZE))) return;
+        for (int i = 0; i < cell.size(); i++) {
+            int row = cell.getInt(i);
+            if (distanceSq(row, x, z) > r2) continue;
+            int wx = table.x(row), wz = table.z(row);
+            if (frustum == null || frustum.isVisible(new Box(wx, MIN_Y, wz, wx + 1, MAX_Y, wz + 1))) out.add(row);
+        }
+    }
+
+    private double distanceSq(int row, double x, double z) {
+        double dx = table.x(row) + 0.5 - x, dz = table.z(row) + 0.5 - z;
+        return dx * dx + dz * dz;
+    }
+
+    private static int floorCell(double coord) {
+        return (int) Math.floor(Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, coord))) >> CELL_SHIFT;
+    }
+
+    private static long key(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,181 @@
+package com.lightcraft.client.minimap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.lightcraft.client.LightCraftClient;
+import com.lightcraft.config.ModConfig;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Append-only log of the waypoint changes made since the last {@link WaypointStore} snapshot,
+ * one JSON object per line:
+ * <pre>
+ * {"op":"add","waypoint":{...,"id":7}}
+ * {"op":"toggle","id":7,"enabled":false}
+ * {"op":"remove","id":7}
+ * </pre>
+ * Every change costs one small append on the waypoint I/O thread. Compaction folds the log
+ * into the snapshot and then truncates it.
+ */
+class WaypointJournal {
+    static final class Op {
+        static final int ADD = 0, TOGGLE = 1, REMOVE = 2;
+        final int type;
+        final long id;
+        final boolean enabled;
+        final ModConfig.Waypoint waypoint;
+
+        private Op(int type, long id, boolean enabled, ModConfig.Waypoint waypoint) {
+            this.type = type; this.id = id; this.enabled = enabled; this.waypoint = waypoint;
+        }
+
+        static Op add(ModConfig.Waypoint wp) { return new Op(ADD, wp.id, wp.enabled, wp); }
+        static Op toggle(long id, boolean enabled) { return new Op(TOGGLE, id, enabled, null); }
+        static Op remove(long id) { return new Op(REMOVE, id, false, null); }
+    }
+
+    private final Path file;
+    private final ExecutorService io;
+    private final Gson gson = new Gson();
+
+    WaypointJournal(Path file, ExecutorService io) {
+        this.file = file;
+        this.io = io;
+    }
+
+    boolean exists() { return Files.exists(file); }
+
+    /**
+     * Parses the log in order; call on the I/O thread before any append. A torn last line from a
+     * crash mid-append is cut off the file, so the next append starts on a line of its own.
+     */
+    List<Op> load() {
+        List<Op> ops = new ArrayList<>();
+        if (!Files.exists(file)) return ops;
+        try {
+            byte[] data = Files.readAllBytes(file);
+            int end = data.length;
+            while (end > 0 && data[end - 1] != '\n') end--;
+            if (end < data.length) {
+                LightCraftClient.LOGGER.warn("Dropping torn waypoint journal entry in {}", file.getFileName());
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                    channel.force(true);
+                }
+            }
+            for (String line : new String(data, 0, end, StandardCharsets.UTF_8).split("\n")) {
+                if (line.isBlank()) continue;
+                try {
+                    ops.add(parse(JsonParser.parseString(line).getAsJsonObject()));
+                } catch (Exception e) {
+                    LightCraftClient.LOGGER.warn("Skipping bad waypoint journal entry in {}", file.getFileName());
+                }
+            }
+        } catch (IOException e) { LightCraftClient.LOGGER.error("Error reading waypoints", e); }
+        return ops;
+    }
+
+    private Op parse(JsonObject op) {
+        return switch (op.get("op").getAsString()) {
+            case "add" -> Op.add(gson.fromJson(op.get("waypoint"), ModConfig.Waypoint.class));
+            case "toggle" -> Op.toggle(op.get("id").getAsLong(), op.get("enabled").getAsBoolean());
+            case "remove" -> Op.remove(op.get("id").getAsLong());
+            default -> throw new IllegalArgumentException("Unknown op");
+        };
+    }
+
+    /** Applies ops in order to {@code live}; with a dimension, adds for other dimensions are skipped. */
+    static void replay(List<Op> ops, String dimension, Map<Long, ModConfig.Waypoint> live) {
+        for (Op op : ops) {
+            switch (op.type) {
+                case Op.ADD -> {
+                    if (dimension == null || dimension.equals(op.waypoint.dimension)) live.put(op.id, op.waypoint);
+                }
+                case Op.TOGGLE -> {
+                    ModConfig.Waypoint wp = live.get(op.id);
+                    if (wp != null) wp.enabled = op.enabled;
+                }
+                case Op.REMOVE -> live.remove(op.id);
+            }
+        }
+    }
+
+    void add(ModConfig.Waypoint wp) {
+        JsonObject op = new JsonObject();
+        op.addProperty("op", "add");
+        op.add("waypoint", gson.toJsonTree(wp));
+        append(op);
+    }
+
+    void toggle(long id, boolean enabled) {
+        JsonObject op = new JsonObject();
+        op.addProperty("op", "toggle");
+        op.addProperty("id", id);
+        op.addProperty("enabled", enabled);
+        append(op);
+    }
+
+    void remove(long id) {
+        JsonObject op = new JsonObject();
+        op.addProperty("op", "remove");
+        op.addProperty("id", id);
+        append(op);
+    }
+
+    /** Writes a complete log of adds in one go, replacing the file atomically; call on the I/O thread. */
+    void write(Collection<ModConfig.Waypoint> waypoints) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (ModConfig.Waypoint wp : waypoints) {
+            JsonObject op = new JsonObject();
+            op.addProperty("op", "add");
+            op.add("waypoint", gson.toJsonTree(wp));
+            sb.append(op).append('\n');
+        }
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, sb.toString().getBytes(StandardCharsets.UTF_8));
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Empties the log once its ops are in the snapshot; call on the I/O thread. */
+    void truncate() throws IOException {
+        if (!Files.exists(file)) return;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    private void append(JsonObject op) {
+        byte[] bytes = (op + "\n").getBytes(StandardCharsets.UTF_8);
+        io.execute(() -> {
+            try {
+                Files.createDirectories(file.getParent());
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    writeFully(channel, bytes);
+                }
+            } catch (IOException e) { LightCraftClient.LOGGER.error("Error writing waypoint", e); }
+        });
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
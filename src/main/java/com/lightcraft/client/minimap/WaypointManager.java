@@ -2,43 +2,358 @@ package com.lightcraft.client.minimap;
 import com.lightcraft.config.ConfigManager;
 import com.lightcraft.config.ModConfig;
 import com.lightcraft.client.LightCraftClient;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.client.render.Frustum;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Waypoints of the dimension the player is in.
+ * Each server/world has a binary snapshot ({@code <worldKey>.lcwp}) plus a journal of later changes
+ * ({@code <worldKey>.jsonl}). Joining reads only the snapshot's index and the journal; entering a
+ * dimension decodes that dimension's section on the I/O thread and publishes it on the main thread.
+ * Changes are journal appends; the journal is folded into the snapshot when leaving the world.
+ * Waypoints from before per-world stores are kept read-only in {@code legacy.jsonl}, and every world
+ * store created afterwards starts with a copy of them.
+ */
 public class WaypointManager {
+    private static final int MIN_COMPACT_OPS = 64;
+    private static final String LEGACY_FILE = "legacy.jsonl";
+    // Undrained changes beyond this turn into a whole-set change
+    private static final int MAX_TRACKED_CHANGES = 4096;
+
+    private final ModConfig config;
     private final ConfigManager configManager;
-    private List<ModConfig.Waypoint> waypoints;
+    private final Path root;
+    private final Executor mainThread;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LightCraft Waypoints");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Main thread only
+    private WaypointStore store;
+    private WaypointJournal journal;
+    private Map<String, WaypointStore.Section> sections;
+    private final List<WaypointJournal.Op> ops = new ArrayList<>();
+    private int worldGeneration = 0;
+    private int dimensionGeneration = 0;
+    private World world;
+    private String dimension;
+    private int dimensionId = -1;
+    private final WaypointTable table = new WaypointTable();
+    private final WaypointIndex spatial = new WaypointIndex(table);
+    private int version = 0;
+    private int setVersion = 0;
+    // Packed block (x, z) of each waypoint added, toggled or removed since the last drain
+    private final LongArrayList changes = new LongArrayList();
+    private List<ModConfig.Waypoint> copies = new ArrayList<>();
+    private int copiesVersion = -1;
     
-    public WaypointManager(ConfigManager configManager) {
+    public WaypointManager(ModConfig config, ConfigManager configManager, Path root, Executor mainThread) {
+        this.config = config;
         this.configManager = configManager;
-        this.waypoints = LightCraftClient.getInstance() != null ? 
-            LightCraftClient.getInstance().getConfig().waypoints : new java.util.ArrayList<>();
+        this.root = root;
+        this.mainThread = mainThread;
+    }
+    
+    /** Starts loading the joined world's index and journal in the background. */
+    public void open(String worldKey) {
+        close();
+        exportLegacy();
+        int generation = ++worldGeneration;
+        WaypointStore openedStore = new WaypointStore(root.resolve(worldKey + ".lcwp"));
+        WaypointJournal openedJournal = new WaypointJournal(root.resolve(worldKey + ".jsonl"), io);
+        store = openedStore;
+        journal = openedJournal;
+        
+        io.execute(() -> {
+            long start = System.nanoTime();
+            boolean created = !openedStore.exists() && !openedJournal.exists();
+            Map<String, WaypointStore.Section> loadedIndex;
+            try {
+                loadedIndex = openedStore.readIndex();
+            } catch (Exception e) {
+                LightCraftClient.LOGGER.error("Error reading waypoint index", e);
+                loadedIndex = new HashMap<>();
+            }
+            List<WaypointJournal.Op> loadedOps = openedJournal.load();
+            Map<Long, ModConfig.Waypoint> legacy = new LinkedHashMap<>();
+            if (created) WaypointJournal.replay(new WaypointJournal(root.resolve(LEGACY_FILE), io).load(), null, legacy);
+            long micros = (System.nanoTime() - start) / 1000;
+            Map<String, WaypointStore.Section> result = loadedIndex;
+            mainThread.execute(() -> {
+                if (generation != worldGeneration) return;
+                sections = result;
+                // Changes made while loading were appended after the journal was read
+                ops.addAll(0, loadedOps);
+                int total = 0;
+                for (WaypointStore.Section s : result.values()) total += s.count;
+                LightCraftClient.LOGGER.info("Opened waypoints for {}: {} stored in {} dimensions, {} journal entries, {} us",
+                    worldKey, total, result.size(), loadedOps.size(), micros);
+                if (!legacy.isEmpty()) seedLegacy(worldKey, legacy.values());
+                if (dimension != null) loadDimension();
+            });
+        });
+    }
+    
+    // Waypoints used to be global in the config. They are written once to their own store, which no
+    // world ever changes; the config drops them only after that file is on disk.
+    private void exportLegacy() {
+        if (config.waypoints == null || config.waypoints.isEmpty()) return;
+        List<ModConfig.Waypoint> list = new ArrayList<>(config.waypoints.size());
+        for (ModConfig.Waypoint wp : config.waypoints) list.add(copy(wp));
+        WaypointJournal legacy = new WaypointJournal(root.resolve(LEGACY_FILE), io);
+        io.execute(() -> {
+            // An existing file is from an export whose config save did not happen
+            if (!legacy.exists()) {
+                try {
+                    legacy.write(list);
+                } catch (Exception e) {
+                    LightCraftClient.LOGGER.error("Error exporting legacy waypoints", e);
+                    return;
+                }
+            }
+            mainThread.execute(() -> {
+                config.waypoints.clear();
+                configManager.saveConfig(config);
+                LightCraftClient.LOGGER.info("Exported {} legacy waypoints to {}", list.size(), LEGACY_FILE);
+            });
+        });
+    }
+    
+    // A new world store gets its own copies, so changes there never touch the legacy store or other worlds
+    private void seedLegacy(String worldKey, Collection<ModConfig.Waypoint> legacy) {
+        for (ModConfig.Waypoint wp : legacy) {
+            ModConfig.Waypoint seeded = copy(wp);
+            record(WaypointJournal.Op.add(seeded));
+            journal.add(seeded);
+        }
+        LightCraftClient.LOGGER.info("Copied {} legacy waypoints into {}", legacy.size(), worldKey);
+    }
+    
+    private static ModConfig.Waypoint copy(ModConfig.Waypoint legacy) {
+        ModConfig.Waypoint wp = new ModConfig.Waypoint(legacy.name, legacy.x, legacy.y, legacy.z, legacy.color, legacy.dimension);
+        wp.enabled = legacy.enabled;
+        wp.id = newId();
+        return wp;
+    }
+    
+    /** Call every tick; switches the visible set when the player changes dimension. */
+    public void onWorld(World world) {
+        if (world == this.world) return;
+        this.world = world;
+        String dim = world != null ? world.getRegistryKey().getValue().toString() : null;
+        if (dim == null || dim.equals(dimension)) return;
+        dimension = dim;
+        dimensionId = WaypointTable.dimensionId(dim);
+        loadDimension();
+    }
+    
+    private void loadDimension() {
+        int generation = ++dimensionGeneration;
+        String dim = dimension;
+        // Journal-only waypoints show immediately; the stored section follows
+        publish(new ArrayList<>());
+        if (sections == null || store == null) return;
+        WaypointStore.Section section = sections.get(dim);
+        if (section == null) return;
+        WaypointStore sectionStore = store;
+        io.execute(() -> {
+            long start = System.nanoTime();
+            List<ModConfig.Waypoint> decoded;
+            try {
+                decoded = sectionStore.readSection(section);
+            } catch (Exception e) {
+                LightCraftClient.LOGGER.error("Error reading waypoints for " + dim, e);
+                return;
+            }
+            long micros = (System.nanoTime() - start) / 1000;
+            mainThread.execute(() -> {
+                if (generation != dimensionGeneration) return;
+                publish(decoded);
+                LightCraftClient.LOGGER.info("Loaded {} waypoints for {} in {} us", decoded.size(), dim, micros);
+            });
+        });
+    }
+    
+    private void publish(List<ModConfig.Waypoint> base) {
+        Map<Long, ModConfig.Waypoint> live = new LinkedHashMap<>();
+        for (ModConfig.Waypoint wp : base) live.put(wp.id, wp);
+        WaypointJournal.replay(ops, dimension, live);
+        table.clear();
+        spatial.clear();
+        for (ModConfig.Waypoint wp : live.values()) {
+            int row = table.add(wp);
+            if (wp.enabled) spatial.add(row);
+        }
+        replaced();
+    }
+    
+    private void replaced() {
+        changes.clear();
+        setVersion++;
+        version++;
+    }
+    
+    /** Leaves the world, folding a long journal into the snapshot in the background. */
+    public void close() {
+        worldGeneration++;
+        dimensionGeneration++;
+        if (store != null && sections != null && ops.size() >= MIN_COMPACT_OPS) {
+            WaypointStore compactStore = store;
+            WaypointJournal compactJournal = journal;
+            List<WaypointJournal.Op> pending = new ArrayList<>(ops);
+            io.execute(() -> {
+                try {
+                    Map<Long, ModConfig.Waypoint> all = compactStore.readAll();
+                    WaypointJournal.replay(pending, null, all);
+                    compactStore.write(all.values());
+                    compactJournal.truncate();
+                } catch (Exception e) { LightCraftClient.LOGGER.error("Error compacting waypoints", e); }
+            });
+        }
+        store = null;
+        journal = null;
+        sections = null;
+        ops.clear();
+        world = null;
+        dimension = null;
+        dimensionId = -1;
+        table.clear();
+        spatial.clear();
+        replaced();
+    }
+    
+    /** Waits for queued journal writes and compaction; used on shutdown. */
+    public void flush() {
+        try {
+            io.submit(() -> {}).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) { LightCraftClient.LOGGER.error("Error flushing waypoints", e); }
     }
     
     public void addWaypoint(String name, BlockPos pos, int color, String dim) {
-        waypoints.add(new ModConfig.Waypoint(name, pos.getX(), pos.getY(), pos.getZ(), color, dim));
-        save();
+        if (journal == null) return;
+        ModConfig.Waypoint wp = new ModConfig.Waypoint(name, pos.getX(), pos.getY(), pos.getZ(), color, dim);
+        wp.id = newId();
+        record(WaypointJournal.Op.add(wp));
+        journal.add(wp);
+    }
+    
+    /** Removes the waypoint at this row of {@link #getTable()} (same order as {@link #getWaypoints()}). */
+    public void removeWaypoint(int row) {
+        if (journal != null && row >= 0 && row < table.size()) {
+            long id = table.id(row);
+            record(WaypointJournal.Op.remove(id));
+            journal.remove(id);
+        }
+    }
+    
+    public void toggleWaypoint(int row) {
+        if (journal != null && row >= 0 && row < table.size()) {
+            long id = table.id(row);
+            boolean enabled = !table.isEnabled(row);
+            record(WaypointJournal.Op.toggle(id, enabled));
+            journal.toggle(id, enabled);
+        }
+    }
+    
+    // Keeps the in-memory op list, the table and the spatial index in step with the journal
+    private void record(WaypointJournal.Op op) {
+        ops.add(op);
+        switch (op.type) {
+            case WaypointJournal.Op.ADD -> {
+                if (dimensionId < 0 || WaypointTable.dimensionId(op.waypoint.dimension) != dimensionId) return;
+                int row = table.add(op.waypoint);
+                if (op.waypoint.enabled) spatial.add(row);
+                changed(op.waypoint.x, op.waypoint.z);
+            }
+            case WaypointJournal.Op.TOGGLE -> {
+                int row = table.rowOf(op.id);
+                if (row < 0 || table.isEnabled(row) == op.enabled) return;
+                changed(table.x(row), table.z(row));
+                table.setEnabled(row, op.enabled);
+                if (op.enabled) spatial.add(row);
+                else spatial.remove(row);
+            }
+            case WaypointJournal.Op.REMOVE -> {
+                int row = table.rowOf(op.id);
+                if (row < 0) return;
+                changed(table.x(row), table.z(row));
+                if (table.isEnabled(row)) spatial.remove(row);
+                table.remove(row, spatial);
+            }
+        }
+        version++;
     }
     
-    public void removeWaypoint(int index) {
-        if (index >= 0 && index < waypoints.size()) {
-            waypoints.remove(index);
-            save();
+    private void changed(int x, int z) {
+        if (changes.size() >= MAX_TRACKED_CHANGES) {
+            replaced();
+            return;
         }
+        changes.add(((long) x << 32) | (z & 0xFFFFFFFFL));
+    }
+    
+    // Random ids never collide with entries that are still on disk and not yet loaded
+    private static long newId() {
+        return ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
     }
     
-    public void toggleWaypoint(int index) {
-        if (index >= 0 && index < waypoints.size()) {
-            waypoints.get(index).enabled = !waypoints.get(index).enabled;
-            save();
+    /** Waypoints of the current dimension, read column-wise; rows are what the find methods return. */
+    public WaypointTable getTable() { return table; }
+    
+    /** Copies of the current dimension's waypoints in row order, for screens; rebuilt only after changes. */
+    public List<ModConfig.Waypoint> getWaypoints() {
+        if (copiesVersion != version) {
+            copies = new ArrayList<>(table.size());
+            for (int row = 0; row < table.size(); row++) copies.add(table.toWaypoint(row));
+            copiesVersion = version;
         }
+        return copies;
     }
     
-    private void save() {
-        ModConfig config = LightCraftClient.getInstance().getConfig();
-        config.waypoints = waypoints;
-        configManager.saveConfig(config);
+    /** Changes whenever the visible set or any of its waypoints changes, so consumers can cache derived data. */
+    public int getVersion() { return version; }
+    
+    /** Changes only when the visible set is replaced as a whole: world or dimension switches and section loads. */
+    public int getSetVersion() { return setVersion; }
+    
+    /**
+     * Moves the packed block (x, z) positions ({@code x << 32 | z}) of the waypoints added, toggled or
+     * removed since the last call into {@code out}. Positions from before a set replacement are dropped.
+     */
+    public void drainChanges(LongArrayList out) {
+        out.addAll(changes);
+        changes.clear();
     }
     
-    public List<ModConfig.Waypoint> getWaypoints() { return waypoints; }
+    /** Rows of the enabled waypoints of the current dimension within {@code radius} blocks (horizontally) of (x, z). */
+    public void findInRadius(double x, double z, double radius, IntArrayList out) {
+        spatial.findInRadius(x, z, radius, out);
+    }
+    
+    /** Rows of up to {@code count} enabled waypoints of the current dimension closest to (x, z), nearest first. */
+    public void findNearest(double x, double z, int count, IntArrayList out) {
+        spatial.findNearest(x, z, count, out);
+    }
+    
+    /** Rows of the enabled waypoints of the current dimension whose beam column is inside the frustum and within range. */
+    public void findVisible(Frustum frustum, double x, double z, double maxDistance, IntArrayList out) {
+        spatial.findVisible(frustum, x, z, maxDistance, out);
+    }
 }
@@ -0,0 +1,186 @@
+package com.lightcraft.client.minimap;
+
+import com.lightcraft.config.ModConfig;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compacted binary snapshot of one server/world's waypoints, split into per-dimension sections.
+ * Opening a world reads only the index; a section is decoded when its dimension is entered.
+ *
+ * Layout (version 1, little endian):
+ *   int magic, int version, int sectionCount
+ *   per section: short nameLength, UTF-8 dimension, int count, long offset, int length
+ *   per record:  long id, int x, int y, int z, int color, byte enabled, short nameLength, UTF-8 name
+ */
+class WaypointStore {
+    private static final int MAGIC = 0x4C435750; // "LCWP"
+    private static final int VERSION = 1;
+
+    static final class Section {
+        final String dimension;
+        final int count;
+        final long offset;
+        final int length;
+
+        Section(String dimension, int count, long offset, int length) {
+            this.dimension = dimension; this.count = count; this.offset = offset; this.length = length;
+        }
+    }
+
+    private final Path file;
+    private final Path tempFile;
+
+    WaypointStore(Path file) {
+        this.file = file;
+        this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    boolean exists() { return Files.exists(file); }
+
+    /** Section index by dimension; empty if there is no snapshot yet. */
+    Map<String, Section> readIndex() throws IOException {
+        Map<String, Section> index = new HashMap<>();
+        if (!Files.exists(file)) return index;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = read(channel, 0, 12);
+            if (head.getInt() != MAGIC) throw new IOException("Not a waypoint store: " + file);
+            if (head.getInt() != VERSION) throw new IOException("Unsupported waypoint store version: " + file);
+            int sections = head.getInt();
+            long pos = 12;
+            for (int i = 0; i < sections; i++) {
+                int nameLength = read(channel, pos, 2).getShort() & 0xFFFF;
+                ByteBuffer entry = read(channel, pos + 2, nameLength + 16);
+                String dimension = utf8(entry, nameLength);
+                index.put(dimension, new Section(dimension, entry.getInt(), entry.getLong(), entry.getInt()));
+                pos += 2 + nameLength + 16;
+            }
+        }
+        return index;
+    }
+
+    List<ModConfig.Waypoint> readSection(Section section) throws IOException {
+        List<ModConfig.Waypoint> list = new ArrayList<>(section.count);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = read(channel, section.offset, section.length);
+            for (int i = 0; i < section.count; i++) {
+                ModConfig.Waypoint wp = new ModConfig.Waypoint();
+                wp.id = buf.getLong();
+                wp.x = buf.getInt(); wp.y = buf.getInt(); wp.z = buf.getInt();
+                wp.color = buf.getInt();
+                wp.enabled = buf.get() != 0;
+                wp.name = utf8(buf, buf.getShort() & 0xFFFF);
+                wp.dimension = section.dimension;
+                list.add(wp);
+            }
+        }
+        return list;
+    }
+
+    /** Every waypoint in the snapshot, keyed by id in file order. */
+    Map<Long, ModConfig.Waypoint> readAll() throws IOException {
+        Map<Long, ModConfig.Waypoint> all = new LinkedHashMap<>();
+        for (Section section : readIndex().values()) {
+            for (ModConfig.Waypoint wp : readSection(section)) all.put(wp.id, wp);
+        }
+        return all;
+    }
+
+    /** Replaces the snapshot with the given waypoints via a synced temp file and an atomic move. */
+    void write(Iterable<ModConfig.Waypoint> waypoints) throws IOException {
+        Map<String, List<ModConfig.Waypoint>> byDimension = new LinkedHashMap<>();
+        for (ModConfig.Waypoint wp : waypoints) {
+            byDimension.computeIfAbsent(wp.dimension != null ? wp.dimension : "", d -> new ArrayList<>()).add(wp);
+        }
+
+        // Encode the sections first so the index can point at them
+        List<byte[]> names = new ArrayList<>();
+        List<ByteBuffer> bodies = new ArrayList<>();
+        int headerSize = 12;
+        for (Map.Entry<String, List<ModConfig.Waypoint>> e : byDimension.entrySet()) {
+            byte[] name = bytes(e.getKey());
+            names.add(name);
+            headerSize += 2 + name.length + 16;
+            bodies.add(encode(e.getValue()));
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(byDimension.size());
+        long offset = headerSize;
+        int i = 0;
+        for (List<ModConfig.Waypoint> section : byDimension.values()) {
+            byte[] name = names.get(i);
+            int length = bodies.get(i).remaining();
+            header.putShort((short) name.length).put(name).putInt(section.size()).putLong(offset).putInt(length);
+            offset += length;
+            i++;
+        }
+        header.flip();
+
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            for (ByteBuffer body : bodies) writeFully(channel, body);
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static ByteBuffer encode(List<ModConfig.Waypoint> section) {
+        int size = 0;
+        byte[][] names = new byte[section.size()][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = bytes(section.get(i).name);
+            size += 8 + 16 + 1 + 2 + names[i].length;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < names.length; i++) {
+            ModConfig.Waypoint wp = section.get(i);
+            buf.putLong(wp.id).putInt(wp.x).putInt(wp.y).putInt(wp.z).putInt(wp.color);
+            buf.put((byte) (wp.enabled ? 1 : 0)).putShort((short) names[i].length).put(names[i]);
+        }
+        return buf.flip();
+    }
+
+    // Names longer than a short can describe are cut, never the record layout
+    private static byte[] bytes(String s) {
+        byte[] b = (s != null ? s : "").getBytes(StandardCharsets.UTF_8);
+        return b.length <= 0xFFFF ? b : Arrays.copyOf(b, 0xFFFF);
+    }
+
+    private static String utf8(ByteBuffer buf, int length) {
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return s;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) throw new IOException("Truncated waypoint store");
+        }
+        return buf.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+}
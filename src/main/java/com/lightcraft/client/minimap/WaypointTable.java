@@ -0,0 +1,129 @@
+package com.lightcraft.client.minimap;
+
+import com.lightcraft.config.ModConfig;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runtime waypoint storage as parallel primitive columns, one row per waypoint.
+ * Dimensions are interned to small ints, so filtering and rendering scan plain arrays without
+ * touching strings. Rows are dense: removing one moves the last row into its place, and
+ * {@link RowListener} reports the move to anything holding row numbers.
+ * {@link ModConfig.Waypoint} is only used to get data in and out (files, journal, screens).
+ */
+public class WaypointTable {
+    public interface RowListener { void onRowMoved(int from, int to); }
+
+    // Interning is global so ids stay stable across tables and worlds
+    private static final Object2IntOpenHashMap<String> DIMENSION_IDS = new Object2IntOpenHashMap<>();
+    private static final List<String> DIMENSION_NAMES = new ArrayList<>();
+    static {
+        DIMENSION_IDS.defaultReturnValue(-1);
+    }
+
+    private long[] ids = new long[16];
+    private int[] xs = new int[16], ys = new int[16], zs = new int[16];
+    private int[] colors = new int[16];
+    private short[] dimensions = new short[16];
+    private String[] names = new String[16];
+    private long[] enabled = new long[1];
+    private int size = 0;
+    private final Long2IntOpenHashMap rows = new Long2IntOpenHashMap();
+
+    public WaypointTable() {
+        rows.defaultReturnValue(-1);
+    }
+
+    /** Small stable id for a dimension key such as {@code minecraft:overworld}. */
+    public static synchronized int dimensionId(String dimension) {
+        int id = DIMENSION_IDS.getInt(dimension);
+        if (id < 0) {
+            id = DIMENSION_NAMES.size();
+            DIMENSION_IDS.put(dimension, id);
+            DIMENSION_NAMES.add(dimension);
+        }
+        return id;
+    }
+
+    public static synchronized String dimensionName(int id) { return DIMENSION_NAMES.get(id); }
+
+    /** Appends a copy of the waypoint and returns its row. */
+    public int add(ModConfig.Waypoint wp) {
+        if (size == ids.length) grow();
+        int row = size++;
+        ids[row] = wp.id;
+        xs[row] = wp.x; ys[row] = wp.y; zs[row] = wp.z;
+        colors[row] = wp.color;
+        dimensions[row] = (short) dimensionId(wp.dimension);
+        names[row] = wp.name != null ? wp.name : "";
+        setEnabled(row, wp.enabled);
+        rows.put(wp.id, row);
+        return row;
+    }
+
+    /** Removes a row by moving the last row into it. */
+    public void remove(int row, RowListener listener) {
+        int last = --size;
+        rows.remove(ids[row]);
+        if (row != last) {
+            ids[row] = ids[last];
+            xs[row] = xs[last]; ys[row] = ys[last]; zs[row] = zs[last];
+            colors[row] = colors[last];
+            dimensions[row] = dimensions[last];
+            names[row] = names[last];
+            setEnabled(row, isEnabled(last));
+            rows.put(ids[row], row);
+            if (listener != null) listener.onRowMoved(last, row);
+        }
+        names[last] = null;
+        setEnabled(last, false);
+    }
+
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(enabled, 0L);
+        rows.clear();
+        size = 0;
+    }
+
+    public int size() { return size; }
+    /** Row of the waypoint with this id, or -1. */
+    public int rowOf(long id) { return rows.get(id); }
+
+    public long id(int row) { return ids[row]; }
+    public int x(int row) { return xs[row]; }
+    public int y(int row) { return ys[row]; }
+    public int z(int row) { return zs[row]; }
+    public int color(int row) { return colors[row]; }
+    public int dimension(int row) { return dimensions[row]; }
+    public String name(int row) { return names[row]; }
+    public boolean isEnabled(int row) { return (enabled[row >>> 6] & (1L << row)) != 0; }
+
+    public void setEnabled(int row, boolean on) {
+        if (on) enabled[row >>> 6] |= 1L << row;
+        else enabled[row >>> 6] &= ~(1L << row);
+    }
+
+    /** Copies a row back out, e.g. for a screen or the journal. */
+    public ModConfig.Waypoint toWaypoint(int row) {
+        ModConfig.Waypoint wp = new ModConfig.Waypoint(names[row], xs[row], ys[row], zs[row], colors[row], dimensionName(dimensions[row]));
+        wp.id = ids[row];
+        wp.enabled = isEnabled(row);
+        return wp;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        dimensions = Arrays.copyOf(dimensions, capacity);
+        names = Arrays.copyOf(names, capacity);
+        enabled = Arrays.copyOf(enabled, (capacity + 63) >>> 6);
+    }
+}
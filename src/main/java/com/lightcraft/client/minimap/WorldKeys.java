@@ -0,0 +1,30 @@
+package com.lightcraft.client.minimap;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.server.integrated.IntegratedServer;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.world.World;
+
+/** File-system safe names for the current server/world and dimension, used to partition saved data. */
+public final class WorldKeys {
+    private WorldKeys() {}
+
+    public static String worldKey(MinecraftClient client) {
+        IntegratedServer server = client.getServer();
+        if (server != null) {
+            return "sp_" + sanitize(server.getSavePath(WorldSavePath.ROOT).normalize().getFileName().toString());
+        }
+        ServerInfo info = client.getCurrentServerEntry();
+        if (info != null) return "mp_" + sanitize(info.address);
+        return "unknown";
+    }
+
+    public static String dimensionKey(World world) {
+        return sanitize(world.getRegistryKey().getValue().toString());
+    }
+
+    private static String sanitize(String s) {
+        return s.toLowerCase().replaceAll("[^a-z0-9._-]", "_");
+    }
+}
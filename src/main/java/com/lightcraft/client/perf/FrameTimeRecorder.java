@@ -0,0 +1,103 @@
+package com.lightcraft.client.perf;
+
+import java.util.Arrays;
+
+/**
+ * Per-frame durations in a ring buffer, written once per frame by the render thread.
+ * Recording is a subtraction and an array store; statistics are computed on demand by
+ * {@link #computeStats} into a caller-owned {@link Stats} through a fixed-bucket histogram.
+ */
+public class FrameTimeRecorder {
+    // 0.1 ms buckets up to 100 ms, plus one overflow bucket
+    private static final long BUCKET_NANOS = 100_000L;
+    private static final int BUCKETS = 1000;
+
+    public static class Stats {
+        public int frames;
+        public long avgNanos;
+        public long p99Nanos;
+        public long worstNanos;
+        /** Average frame rate of the slowest 1% of frames. */
+        public float onePercentLowFps;
+        public float avgFps;
+    }
+
+    private final long[] durations;
+    private final int mask;
+    // Single writer; the count is published after the slot is written
+    private volatile long written = 0;
+    private long lastFrameStart = 0;
+
+    private final int[] histogram = new int[BUCKETS + 1];
+
+    public FrameTimeRecorder(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        this.durations = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /** Called at the start of every frame. */
+    public void frameStart(long now) {
+        if (lastFrameStart != 0) {
+            long n = written;
+            durations[(int) (n & mask)] = now - lastFrameStart;
+            written = n + 1;
+        }
+        lastFrameStart = now;
+    }
+
+    public int capacity() { return durations.length; }
+    public long count() { return written; }
+
+    /** Duration of the frame {@code age} frames ago (0 = most recent), or 0 if it has been overwritten. */
+    public long get(int age) {
+        long n = written;
+        if (age < 0 || age >= durations.length || age >= n) return 0;
+        return durations[(int) ((n - 1 - age) & mask)];
+    }
+
+    /** Statistics over the most recent frames covering at most {@code windowNanos}. */
+    public void computeStats(long windowNanos, Stats out) {
+        long n = written;
+        int available = (int) Math.min(n, durations.length);
+        Arrays.fill(histogram, 0);
+
+        int frames = 0;
+        long total = 0, worst = 0;
+        while (frames < available && total < windowNanos) {
+            long d = durations[(int) ((n - 1 - frames) & mask)];
+            histogram[(int) Math.min(d / BUCKET_NANOS, BUCKETS)]++;
+            total += d;
+            if (d > worst) worst = d;
+            frames++;
+        }
+
+        out.frames = frames;
+        if (frames == 0) {
+            out.avgNanos = out.p99Nanos = out.worstNanos = 0;
+            out.avgFps = out.onePercentLowFps = 0;
+            return;
+        }
+        out.avgNanos = total / frames;
+        out.worstNanos = worst;
+        out.avgFps = 1e9f / out.avgNanos;
+
+        // Walk down from the slowest bucket until 1% of the frames are covered
+        int slowCount = Math.max(1, frames / 100);
+        int seen = 0;
+        long slowTotal = 0;
+        long p99 = worst;
+        for (int b = BUCKETS; b >= 0 && seen < slowCount; b--) {
+            int c = histogram[b];
+            if (c == 0) continue;
+            int take = Math.min(c, slowCount - seen);
+            // Overflow frames are only known to be at least 100 ms; use the worst frame for them
+            long mid = b == BUCKETS ? worst : b * BUCKET_NANOS + BUCKET_NANOS / 2;
+            slowTotal += take * mid;
+            seen += take;
+            p99 = Math.min(mid, worst);
+        }
+        out.p99Nanos = p99;
+        out.onePercentLowFps = 1e9f / Math.max(1, slowTotal / seen);
+    }
+}
@@ -0,0 +1,19 @@
+package com.lightcraft.client.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One timed LightCraft span; begun with the span and committed at its end, so its duration is the span's. */
+@Name("lightcraft.Span")
+@Label("LightCraft Span")
+@Category("LightCraft")
+@Description("Time spent in one LightCraft subsystem")
+@StackTrace(false)
+class SpanEvent extends Event {
+    @Label("Subsystem")
+    String subsystem;
+}
@@ -0,0 +1,100 @@
+package com.lightcraft.client.perf;
+
+import jdk.jfr.EventType;
+
+/**
+ * Timing spans around the main LightCraft subsystems.
+ * Each span feeds a rolling one-second counter for the debug page and, only while a
+ * Flight Recorder session has the {@code lightcraft.Span} event enabled, a JFR event that starts
+ * and ends with the span, so JFR thresholds and the JMC timeline see its real duration.
+ * <pre>
+ * long start = Spans.begin(Spans.HUD);
+ * try { ... } finally { Spans.end(Spans.HUD, start); }
+ * </pre>
+ * A span is only ever open on one thread at a time and never inside itself, so each keeps at most
+ * one pending event.
+ */
+public final class Spans {
+    public static final int HUD = 0;
+    public static final int MINIMAP_TEXTURE = 1;
+    public static final int ENTITY_RADAR = 2;
+    public static final int WAYPOINT_RENDER = 3;
+    public static final int CONFIG_SAVE = 4;
+    public static final int WAYPOINT_LABELS = 5;
+
+    private static final String[] NAMES = { "hud", "minimap_texture", "entity_radar", "waypoint_render", "config_save", "waypoint_labels" };
+    private static final Counter[] COUNTERS = new Counter[NAMES.length];
+    static {
+        for (int i = 0; i < COUNTERS.length; i++) COUNTERS[i] = new Counter();
+    }
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(SpanEvent.class);
+    // Event of each open span while recording; written only by the thread running that span
+    private static final SpanEvent[] EVENTS = new SpanEvent[NAMES.length];
+
+    private Spans() {}
+
+    public static long begin(int span) {
+        if (EVENT_TYPE.isEnabled()) {
+            SpanEvent event = new SpanEvent();
+            event.subsystem = NAMES[span];
+            event.begin();
+            EVENTS[span] = event;
+        }
+        return System.nanoTime();
+    }
+
+    public static void end(int span, long start) {
+        long now = System.nanoTime();
+        COUNTERS[span].record(now - start, now);
+        SpanEvent event = EVENTS[span];
+        if (event != null) {
+            EVENTS[span] = null;
+            event.end();
+            if (event.shouldCommit()) event.commit();
+        }
+    }
+
+    /** Publishes finished windows even for spans that have not run since; call before reading. */
+    public static void roll() {
+        long now = System.nanoTime();
+        for (Counter c : COUNTERS) c.roll(now);
+    }
+
+    public static int count() { return NAMES.length; }
+    public static String name(int span) { return NAMES[span]; }
+    /** Calls in the last completed second. */
+    public static int calls(int span) { return COUNTERS[span].calls; }
+    /** Total time in the last completed second, in nanoseconds. */
+    public static long totalNanos(int span) { return COUNTERS[span].total; }
+    /** Slowest single call in the last completed second, in nanoseconds. */
+    public static long maxNanos(int span) { return COUNTERS[span].max; }
+
+    // Spans may end on worker threads (config saves), so a counter is updated under its own lock
+    private static class Counter {
+        private static final long WINDOW_NANOS = 1_000_000_000L;
+        private long windowStart = System.nanoTime();
+        private int curCalls;
+        private long curTotal, curMax;
+        volatile int calls;
+        volatile long total, max;
+
+        synchronized void record(long elapsed, long now) {
+            roll(now);
+            curCalls++;
+            curTotal += elapsed;
+            if (elapsed > curMax) curMax = elapsed;
+        }
+
+        synchronized void roll(long now) {
+            if (now - windowStart < WINDOW_NANOS) return;
+            // A window with no calls at all publishes zeros
+            boolean skipped = now - windowStart >= 2 * WINDOW_NANOS;
+            calls = skipped ? 0 : curCalls;
+            total = skipped ? 0 : curTotal;
+            max = skipped ? 0 : curMax;
+            curCalls = 0; curTotal = 0; curMax = 0;
+            windowStart = now;
+        }
+    }
+}
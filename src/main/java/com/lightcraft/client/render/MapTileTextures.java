@@ -0,0 +1,101 @@
+package com.lightcraft.client.render;
+
+import com.lightcraft.client.minimap.MapTilePyramid;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.util.Identifier;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * GPU side of the world map: a bounded LRU of tile textures.
+ * Tiles are built from the {@link MapTilePyramid} on a background thread and uploaded on the
+ * render thread a few per frame; requests for tiles that scrolled out of view are dropped.
+ */
+public class MapTileTextures {
+    private static final int MAX_RESIDENT = 96;
+    private static final int MAX_UPLOADS_PER_FRAME = 4;
+
+    private record Built(long key, int[] pixels) {}
+
+    private final MapTilePyramid pyramid;
+    private final LinkedHashMap<Long, Identifier> resident = new LinkedHashMap<>(MAX_RESIDENT, 0.75f, true);
+    private final Set<Long> requested = ConcurrentHashMap.newKeySet();
+    private final Set<Long> empty = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Built> built = new ConcurrentLinkedQueue<>();
+    private volatile LongSet visible = LongSets.EMPTY_SET;
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LightCraft World Map");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MapTileTextures(MapTilePyramid pyramid) { this.pyramid = pyramid; }
+
+    /** Texture for a tile, or null if it is empty or not built yet (in which case it is requested). */
+    public Identifier get(int level, int tileX, int tileZ) {
+        long key = MapTilePyramid.key(level, tileX, tileZ);
+        Identifier id = resident.get(key);
+        if (id != null) return id;
+        if (!empty.contains(key) && requested.add(key)) {
+            builder.execute(() -> {
+                // Skip tiles the user already scrolled away from
+                if (!visible.contains(key)) {
+                    requested.remove(key);
+                    return;
+                }
+                int[] pixels = pyramid.getTile(level, tileX, tileZ);
+                if (pixels == null) {
+                    empty.add(key);
+                    requested.remove(key);
+                } else {
+                    built.add(new Built(key, pixels));
+                }
+            });
+        }
+        return null;
+    }
+
+    /** Keys currently on screen; builds for anything else are skipped. */
+    public void setVisible(LongSet keys) { this.visible = keys; }
+
+    /** Uploads a few finished tiles. Render thread only. */
+    public void uploadPending() {
+        for (int i = 0; i < MAX_UPLOADS_PER_FRAME; i++) {
+            Built b = built.poll();
+            if (b == null) return;
+            requested.remove(b.key());
+            NativeImage image = new NativeImage(MapTilePyramid.TILE_SIZE, MapTilePyramid.TILE_SIZE, false);
+            for (int z = 0; z < MapTilePyramid.TILE_SIZE; z++) {
+                for (int x = 0; x < MapTilePyramid.TILE_SIZE; x++) image.setColor(x, z, b.pixels()[z * MapTilePyramid.TILE_SIZE + x]);
+            }
+            Identifier id = MinecraftClient.getInstance().getTextureManager()
+                .registerDynamicTexture("lightcraft_map_tile", new NativeImageBackedTexture(image));
+            resident.put(b.key(), id);
+            if (resident.size() > MAX_RESIDENT) {
+                Iterator<Map.Entry<Long, Identifier>> eldest = resident.entrySet().iterator();
+                release(eldest.next().getValue());
+                eldest.remove();
+            }
+        }
+    }
+
+    public void close() {
+        builder.shutdownNow();
+        for (Identifier id : resident.values()) release(id);
+        resident.clear();
+    }
+
+    private void release(Identifier id) {
+        MinecraftClient.getInstance().getTextureManager().destroyTexture(id);
+    }
+}
@@ -0,0 +1,185 @@
+package com.lightcraft.client.render;
+
+import com.lightcraft.client.gui.HudRenderer;
+import com.lightcraft.client.minimap.WaypointManager;
+import com.lightcraft.client.minimap.WaypointTable;
+import com.lightcraft.config.ModConfig;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.ints.IntHeapPriorityQueue;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.render.Frustum;
+import net.minecraft.util.math.Vec3d;
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+import java.util.Arrays;
+
+/**
+ * Name and distance labels for in-world waypoints, drawn in the HUD pass at the screen position of
+ * each waypoint as seen by the last world render.
+ * Candidates are the waypoints in the frustum within {@link ModConfig#waypointLabelDistance}; they are
+ * heapified by distance and popped nearest first only until the label budget is filled, so waypoints
+ * behind the camera never take a slot. Text and widths are cached per waypoint, and the distance
+ * string is rebuilt only when its rounded value changes. A label that would overlap an already
+ * placed one is dropped. Beyond {@link ModConfig#waypointLabelDetailDistance}
+ * only the name is shown.
+ */
+public class WaypointLabelRenderer {
+    private static final int CELL = 8;
+    private static final int PADDING = 2;
+
+    private static final class Label {
+        final String name;
+        final int nameWidth;
+        int distance = -1;
+        String distanceText;
+        int distanceWidth;
+
+        Label(String name, int nameWidth) { this.name = name; this.nameWidth = nameWidth; }
+    }
+
+    private final ModConfig config;
+    private final WaypointManager waypointManager;
+    private final Long2ObjectOpenHashMap<Label> labels = new Long2ObjectOpenHashMap<>();
+    private final IntArrayList candidates = new IntArrayList();
+    // Per candidate index: squared 3D distance; the heap orders indices by it
+    private double[] distances = new double[0];
+    private int[] order = new int[0];
+    private final IntComparator nearer = (a, b) -> Double.compare(distances[a], distances[b]);
+    private Frustum frustum;
+    private final Matrix4f viewProjection = new Matrix4f();
+    private final Vector4f clip = new Vector4f();
+    private double camX, camY, camZ;
+    private boolean captured = false;
+    private int labelsVersion = -1;
+
+    // Occupancy bitmap over CELL x CELL screen blocks
+    private long[] occupied = new long[0];
+    private int gridWidth, gridHeight;
+
+    public WaypointLabelRenderer(ModConfig config, WaypointManager waypointManager) {
+        this.config = config;
+        this.waypointManager = waypointManager;
+    }
+
+    /** Remembers the camera of the world render that just finished, for projecting labels in the HUD pass. */
+    public void capture(Vec3d camPos, Matrix4f positionMatrix, Matrix4f projectionMatrix) {
+        projectionMatrix.mul(positionMatrix, viewProjection);
+        frustum = new Frustum(positionMatrix, projectionMatrix);
+        frustum.setPosition(camPos.x, camPos.y, camPos.z);
+        camX = camPos.x; camY = camPos.y; camZ = camPos.z;
+        captured = true;
+    }
+
+    public void render(DrawContext context) {
+        if (!captured || !config.waypointLabels || !config.renderWaypointsInWorld) return;
+        captured = false;
+        if (waypointManager.getVersion() != labelsVersion) {
+            labels.clear();
+            labelsVersion = waypointManager.getVersion();
+        }
+
+        MinecraftClient client = MinecraftClient.getInstance();
+        TextRenderer tr = client.textRenderer;
+        int width = client.getWindow().getScaledWidth();
+        int height = client.getWindow().getScaledHeight();
+        resetGrid(width, height);
+
+        int budget = config.waypointLabelMax;
+        if (budget <= 0) return;
+        waypointManager.findVisible(frustum, camX, camZ, config.waypointLabelDistance, candidates);
+        double maxDistanceSq = (double) config.waypointLabelDistance * config.waypointLabelDistance;
+        int lineHeight = tr.fontHeight + 1;
+
+        WaypointTable table = waypointManager.getTable();
+        if (distances.length < candidates.size()) {
+            distances = new double[candidates.size()];
+            order = new int[candidates.size()];
+        }
+        int count = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            int row = candidates.getInt(i);
+            double dx = table.x(row) + 0.5 - camX, dy = table.y(row) + 1.5 - camY, dz = table.z(row) + 0.5 - camZ;
+            distances[i] = dx * dx + dy * dy + dz * dz;
+            if (distances[i] <= maxDistanceSq) order[count++] = i;
+        }
+        // Heapifying is linear; only the popped candidates pay the log factor
+        IntHeapPriorityQueue nearest = new IntHeapPriorityQueue(order, count, nearer);
+        while (!nearest.isEmpty() && budget > 0) {
+            int index = nearest.dequeueInt();
+            int row = candidates.getInt(index);
+            double distanceSq = distances[index];
+            double dx = table.x(row) + 0.5 - camX, dy = table.y(row) + 1.5 - camY, dz = table.z(row) + 0.5 - camZ;
+
+            viewProjection.transform(clip.set((float) dx, (float) dy, (float) dz, 1.0f));
+            if (clip.w <= 0) continue;
+            int sx = (int) ((clip.x / clip.w * 0.5f + 0.5f) * width);
+            int sy = (int) ((0.5f - clip.y / clip.w * 0.5f) * height);
+
+            Label label = label(table, row, tr);
+            boolean detailed = distanceSq <= (double) config.waypointLabelDetailDistance * config.waypointLabelDetailDistance;
+            if (detailed) updateDistance(label, (int) Math.round(Math.sqrt(distanceSq)), tr);
+            int boxWidth = Math.max(label.nameWidth, detailed ? label.distanceWidth : 0) + PADDING * 2;
+            int boxHeight = (detailed ? lineHeight * 2 : lineHeight) + PADDING;
+            int x1 = sx - boxWidth / 2, y1 = sy - boxHeight;
+            if (x1 + boxWidth < 0 || y1 + boxHeight < 0 || x1 >= width || y1 >= height) continue;
+            if (!claim(x1, y1, x1 + boxWidth, y1 + boxHeight)) continue;
+
+            HudRenderer.fillSafe(context, x1, y1, x1 + boxWidth, y1 + boxHeight, 0x60000000);
+            HudRenderer.drawTextSafe(context, tr, label.name, sx - label.nameWidth / 2, y1 + PADDING, 0xFF000000 | table.color(row), true);
+            if (detailed) HudRenderer.drawTextSafe(context, tr, label.distanceText, sx - label.distanceWidth / 2, y1 + PADDING + lineHeight, 0xFFDDDDDD, true);
+            budget--;
+        }
+    }
+
+    private Label label(WaypointTable table, int row, TextRenderer tr) {
+        long id = table.id(row);
+        Label label = labels.get(id);
+        if (label == null) {
+            String name = table.name(row);
+            label = new Label(name, tr.getWidth(name));
+            labels.put(id, label);
+        }
+        return label;
+    }
+
+    private static void updateDistance(Label label, int distance, TextRenderer tr) {
+        if (distance == label.distance) return;
+        label.distance = distance;
+        label.distanceText = distance + "m";
+        label.distanceWidth = tr.getWidth(label.distanceText);
+    }
+
+    private void resetGrid(int width, int height) {
+        int w = width / CELL + 1, h = height / CELL + 1;
+        if (w != gridWidth || h != gridHeight) {
+            gridWidth = w;
+            gridHeight = h;
+            occupied = new long[(w * h + 63) >>> 6];
+        } else {
+            Arrays.fill(occupied, 0L);
+        }
+    }
+
+    // Marks the cells under the rectangle, unless one of them is already taken
+    private boolean claim(int x1, int y1, int x2, int y2) {
+        int cx1 = Math.max(0, x1 / CELL), cy1 = Math.max(0, y1 / CELL);
+        int cx2 = Math.min(gridWidth - 1, (x2 - 1) / CELL), cy2 = Math.min(gridHeight - 1, (y2 - 1) / CELL);
+        for (int cy = cy1; cy <= cy2; cy++) {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                int bit = cy * gridWidth + cx;
+                if ((occupied[bit >>> 6] & (1L << bit)) != 0) return false;
+            }
+        }
+        for (int cy = cy1; cy <= cy2; cy++) {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                int bit = cy * gridWidth + cx;
+                occupied[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return true;
+    }
+}
@@ -1,59 +1,172 @@
 package com.lightcraft.client.render;
 
 import com.lightcraft.config.ModConfig;
-import com.lightcraft.client.LightCraftClient;
-import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
-import net.minecraft.client.MinecraftClient;
+import com.lightcraft.client.minimap.WaypointManager;
+import com.lightcraft.client.minimap.WaypointTable;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.client.gl.VertexBuffer;
 import net.minecraft.client.render.*;
-import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Vec3d;
 import org.joml.Matrix4f;
 import com.mojang.blaze3d.systems.RenderSystem;
 
+/**
+ * In-world waypoint beams.
+ * Beams are grouped into 512x512 block regions, each with its own static vertex buffer relative to the
+ * region corner. An edit re-uploads only the region of the changed waypoint; all regions are rebuilt
+ * only when the visible set is replaced (world or dimension switch). Every frame, regions outside
+ * the frustum or beyond {@link ModConfig#waypointBeamDistance} are skipped and the rest are drawn with a
+ * camera-relative model-view matrix, so nothing is re-tessellated per frame.
+ */
 public class WaypointWorldRenderer {
-    
-    public static void render(WorldRenderContext context) {
+    private static final int REGION_SHIFT = 9;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final float MIN_Y = -64, MAX_Y = 320;
+
+    private static final class Region {
+        final int originX, originZ;
+        final IntArrayList rows = new IntArrayList();
+        VertexBuffer buffer;
+
+        Region(int originX, int originZ) { this.originX = originX; this.originZ = originZ; }
+    }
+
+    private final ModConfig config;
+    private final WaypointManager waypointManager;
+    private final Long2ObjectOpenHashMap<Region> regions = new Long2ObjectOpenHashMap<>();
+    private final Matrix4f modelView = new Matrix4f();
+    private int builtVersion = -1;
+    private int builtSetVersion = -1;
+    private final LongArrayList changes = new LongArrayList();
+    private final LongOpenHashSet dirtyRegions = new LongOpenHashSet();
+
+    public WaypointWorldRenderer(ModConfig config, WaypointManager waypointManager) {
+        this.config = config;
+        this.waypointManager = waypointManager;
+    }
+
+    public void render(Camera camera, Matrix4f positionMatrix, Matrix4f projectionMatrix) {
+        if (!config.renderWaypointsInWorld) return;
+        if (waypointManager.getSetVersion() != builtSetVersion) rebuild();
+        else if (waypointManager.getVersion() != builtVersion) rebuildChanged();
+        if (regions.isEmpty()) return;
+
+        Vec3d camPos = camera.getPos();
+        Frustum frustum = new Frustum(positionMatrix, projectionMatrix);
+        frustum.setPosition(camPos.x, camPos.y, camPos.z);
+        double maxDistance = config.waypointBeamDistance > 0 ? config.waypointBeamDistance : Double.MAX_VALUE;
+        double maxDistanceSq = maxDistance * maxDistance;
+
+        // Beams show through terrain, as before
+        RenderSystem.disableDepthTest();
+        RenderSystem.enableBlend();
+        RenderSystem.defaultBlendFunc();
+        ShaderProgram shader = GameRenderer.getPositionColorProgram();
         try {
-            ModConfig config = LightCraftClient.getInstance().getConfig();
-            if (!config.renderWaypointsInWorld) return;
-            
-            MinecraftClient client = MinecraftClient.getInstance();
-            if (client.player == null) return;
-            
-            Camera camera = context.camera();
-            Vec3d camPos = camera.getPos();
-            
-            RenderSystem.disableDepthTest();
-            RenderSystem.disableCull();
-            
-            Tessellator tessellator = Tessellator.getInstance();
-            
-            // Safe Buffer Builder
-            BufferBuilder buffer = tessellator.begin(VertexFormat.DrawMode.LINES, VertexFormats.POSITION_COLOR);
-            
-            MatrixStack matrices = context.matrixStack();
-            matrices.push();
-            matrices.translate(-camPos.x, -camPos.y, -camPos.z);
-            Matrix4f mat = matrices.peek().getPositionMatrix();
-            
-            for (ModConfig.Waypoint wp : config.waypoints) {
-                if (!wp.enabled) continue;
-                
-                float r = ((wp.color >> 16) & 0xFF) / 255f;
-                float g = ((wp.color >> 8) & 0xFF) / 255f;
-                float b = (wp.color & 0xFF) / 255f;
-                
-                buffer.vertex(mat, wp.x + 0.5f, 0, wp.z + 0.5f).color(r, g, b, 0.5f);
-                buffer.vertex(mat, wp.x + 0.5f, 320, wp.z + 0.5f).color(r, g, b, 0.5f);
+            for (Region region : regions.values()) {
+                if (region.buffer == null) continue;
+                // Nearest point of the region to the camera, horizontally
+                double dx = Math.max(0, Math.max(region.originX - camPos.x, camPos.x - (region.originX + REGION_SIZE)));
+                double dz = Math.max(0, Math.max(region.originZ - camPos.z, camPos.z - (region.originZ + REGION_SIZE)));
+                if (dx * dx + dz * dz > maxDistanceSq) continue;
+                if (!frustum.isVisible(new Box(region.originX, MIN_Y, region.originZ, region.originX + REGION_SIZE, MAX_Y, region.originZ + REGION_SIZE))) continue;
+
+                modelView.set(positionMatrix).translate((float) (region.originX - camPos.x), (float) -camPos.y, (float) (region.originZ - camPos.z));
+                region.buffer.bind();
+                region.buffer.draw(modelView, projectionMatrix, shader);
             }
-            
-            BufferRenderer.drawWithGlobalProgram(buffer.end());
-            matrices.pop();
-            
+        } finally {
+            VertexBuffer.unbind();
             RenderSystem.enableDepthTest();
-            RenderSystem.enableCull();
-        } catch (Exception e) {
-            // Silently fail if rendering context is invalid
         }
     }
+
+    // Regroups the enabled waypoints and re-uploads every region; only runs after the set was replaced
+    private void rebuild() {
+        close();
+        builtVersion = waypointManager.getVersion();
+        builtSetVersion = waypointManager.getSetVersion();
+        // Every region is rebuilt, so pending changes are moot
+        waypointManager.drainChanges(changes);
+        changes.clear();
+        group(null);
+        WaypointTable table = waypointManager.getTable();
+        for (Region region : regions.values()) upload(region, table);
+    }
+
+    // Re-uploads just the regions holding waypoints added, toggled or removed since the last build
+    private void rebuildChanged() {
+        builtVersion = waypointManager.getVersion();
+        changes.clear();
+        waypointManager.drainChanges(changes);
+        dirtyRegions.clear();
+        for (int i = 0; i < changes.size(); i++) {
+            long position = changes.getLong(i);
+            dirtyRegions.add(regionKey((int) (position >> 32) >> REGION_SHIFT, (int) position >> REGION_SHIFT));
+        }
+        if (dirtyRegions.isEmpty()) return;
+        for (long key : dirtyRegions) {
+            Region region = regions.remove(key);
+            if (region != null && region.buffer != null) region.buffer.close();
+        }
+        group(dirtyRegions);
+        WaypointTable table = waypointManager.getTable();
+        for (long key : dirtyRegions) {
+            Region region = regions.get(key);
+            if (region != null) upload(region, table);
+        }
+    }
+
+    // Adds the enabled rows to their regions, only for the given region keys if not null
+    private void group(LongOpenHashSet only) {
+        WaypointTable table = waypointManager.getTable();
+        for (int row = 0; row < table.size(); row++) {
+            if (!table.isEnabled(row)) continue;
+            int rx = table.x(row) >> REGION_SHIFT, rz = table.z(row) >> REGION_SHIFT;
+            long key = regionKey(rx, rz);
+            if (only != null && !only.contains(key)) continue;
+            Region region = regions.get(key);
+            if (region == null) {
+                region = new Region(rx << REGION_SHIFT, rz << REGION_SHIFT);
+                regions.put(key, region);
+            }
+            region.rows.add(row);
+        }
+    }
+
+    private static long regionKey(int rx, int rz) {
+        return ((long) rx << 32) | (rz & 0xFFFFFFFFL);
+    }
+
+    private void upload(Region region, WaypointTable table) {
+        BufferBuilder buffer = Tessellator.getInstance().begin(VertexFormat.DrawMode.DEBUG_LINES, VertexFormats.POSITION_COLOR);
+        for (int i = 0; i < region.rows.size(); i++) {
+            int row = region.rows.getInt(i);
+            float x = table.x(row) - region.originX + 0.5f, z = table.z(row) - region.originZ + 0.5f;
+            int color = 0xFF000000 | table.color(row);
+            buffer.vertex(x, MIN_Y, z).color(color);
+            buffer.vertex(x, MAX_Y, z).color(color);
+        }
+        BuiltBuffer built = buffer.endNullable();
+        if (built == null) return;
+        region.buffer = new VertexBuffer(VertexBuffer.Usage.STATIC);
+        region.buffer.bind();
+        region.buffer.upload(built);
+        VertexBuffer.unbind();
+        region.rows.clear();
+    }
+
+    /** Frees the GPU buffers; they are rebuilt on the next frame that needs them. */
+    public void close() {
+        for (Region region : regions.values()) {
+            if (region.buffer != null) region.buffer.close();
+        }
+        regions.clear();
+        builtVersion = -1;
+        builtSetVersion = -1;
+    }
 }
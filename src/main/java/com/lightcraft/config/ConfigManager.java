@@ -2,19 +2,55 @@ package com.lightcraft.config;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.lightcraft.client.LightCraftClient;
+import com.lightcraft.client.perf.Spans;
 import net.fabricmc.loader.api.FabricLoader;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Loads and saves lightcraft.json.
+ * Saves are debounced: a burst of {@link #saveConfig} calls becomes one write, made once the calls
+ * pause for {@code DEBOUNCE_MS} or at the latest {@code MAX_DELAY_MS} after the first. The config is
+ * serialized on the main thread (where it is mutated), then a single writer thread replaces the
+ * file atomically via a synced temp file, so writes never interleave and a crash cannot truncate it.
+ */
 public class ConfigManager {
     private static final String CONFIG_FILENAME = "lightcraft.json";
+    private static final long DEBOUNCE_MS = 500;
+    // A save stream that never pauses (e.g. a long drag) is still written this often
+    private static final long MAX_DELAY_MS = 2000;
+    private static final long FLUSH_TIMEOUT_SECONDS = 10;
     private final Path configPath;
+    private final Path tempPath;
     private final Gson gson;
+    private final Executor mainThread;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "LightCraft Config Writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Guarded by this
+    private ModConfig pendingConfig;
+    private boolean dirty = false;
+    private long dirtySince;
+    private ScheduledFuture<?> pendingSave;
     
-    public ConfigManager() {
+    /** @param mainThread runs the serialization step; the thread that mutates the config */
+    public ConfigManager(Executor mainThread) {
         this.configPath = FabricLoader.getInstance().getConfigDir().resolve(CONFIG_FILENAME);
+        this.tempPath = configPath.resolveSibling(CONFIG_FILENAME + ".tmp");
         this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.mainThread = mainThread;
     }
     
     public ModConfig loadConfig() {
@@ -28,16 +64,71 @@ public class ConfigManager {
         return config;
     }
     
-    public void saveConfig(ModConfig config) {
-        CompletableFuture.runAsync(() -> saveConfigImmediate(config));
+    /** Marks the config dirty; it is written once no further saves arrive for a short while. */
+    public synchronized void saveConfig(ModConfig config) {
+        pendingConfig = config;
+        long now = System.nanoTime();
+        if (!dirty) dirtySince = now;
+        dirty = true;
+        // Each save pushes the write back, but never past MAX_DELAY_MS after the first unsaved change
+        if (pendingSave != null) pendingSave.cancel(false);
+        long waited = TimeUnit.NANOSECONDS.toMillis(now - dirtySince);
+        long delay = Math.max(0, Math.min(DEBOUNCE_MS, MAX_DELAY_MS - waited));
+        pendingSave = writer.schedule(() -> mainThread.execute(this::serializePending), delay, TimeUnit.MILLISECONDS);
     }
     
-    public void saveConfigImmediate(ModConfig config) {
+    /**
+     * Writes pending changes now and waits (up to 10 s) for every queued write to finish.
+     * Call on the main thread, e.g. when the game closes. Returns false if nothing was dirty.
+     */
+    public boolean flush() {
+        String json = null;
+        synchronized (this) {
+            if (pendingSave != null) pendingSave.cancel(false);
+            pendingSave = null;
+            if (dirty) {
+                dirty = false;
+                json = gson.toJson(pendingConfig);
+            }
+        }
+        final String snapshot = json;
+        try {
+            writer.submit(() -> { if (snapshot != null) write(snapshot); }).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) { LightCraftClient.LOGGER.error("Error flushing config", e); }
+        return snapshot != null;
+    }
+    
+    // Main thread: take a consistent snapshot, then hand the bytes to the writer
+    private void serializePending() {
+        String json;
+        synchronized (this) {
+            pendingSave = null;
+            if (!dirty) return;
+            dirty = false;
+            json = gson.toJson(pendingConfig);
+        }
+        writer.execute(() -> write(json));
+    }
+    
+    // Writer thread only
+    private void write(String json) {
+        long spanStart = Spans.begin(Spans.CONFIG_SAVE);
         try {
             Files.createDirectories(configPath.getParent());
-            try (Writer writer = Files.newBufferedWriter(configPath)) {
-                gson.toJson(config, writer);
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bytes = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) channel.write(bytes);
+                channel.force(true);
             }
-        } catch (Exception e) { LightCraftClient.LOGGER.error("Error saving config", e); }
+            try {
+                Files.move(tempPath, configPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, configPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (Exception e) {
+            LightCraftClient.LOGGER.error("Error saving config", e);
+        } finally {
+            Spans.end(Spans.CONFIG_SAVE, spanStart);
+        }
     }
 }
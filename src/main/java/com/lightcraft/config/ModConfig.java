@@ -5,11 +5,22 @@ import java.util.List;
 public class ModConfig {
     public boolean hudEnabled = true;
     public float hudScale = 1.0f;
+    public boolean hudRetainedLayer = true;
+    public int hudUpdateBudgetMicros = 1000;
     
     public boolean fpsEnabled = true;
     public int fpsX = 5;
     public int fpsY = 5;
     public int fpsUpdateInterval = 500;
+    public boolean fpsShowFrameStats = true;
+    
+    public boolean frameGraphEnabled = false;
+    public int frameGraphX = 5;
+    public int frameGraphY = 70;
+    
+    public boolean debugPageEnabled = false;
+    public int debugX = 5;
+    public int debugY = 120;
     
     public boolean coordsEnabled = true;
     public int coordsX = 5;
@@ -22,14 +33,24 @@ public class ModConfig {
     public int minimapY = 10;
     public int minimapSize = 100;
     public int minimapZoom = 1;
+    public int minimapZoomOut = 0; // 0-4, each map pixel covers 2^n blocks; overrides minimapZoom when set
+    public boolean minimapSlopeShading = true; // shade by neighbouring heights instead of height relative to the player
+    public int minimapSliceMode = 1; // 0 = surface, 1 = slice in the Nether and underground, 2 = always slice at head height
     public boolean minimapRotate = true;
     public boolean minimapShowEntities = true;
     public boolean minimapCircular = true;
     public int minimapBorderColor = 0xFF555555;
+    public boolean minimapShowUploadStats = false;
     
     // Waypoints
     public boolean renderWaypointsInWorld = true;
+    public int waypointBeamDistance = 4096; // Blocks, 0 = unlimited; approximate, beams are culled per 512-block region (up to ~724 blocks further)
+    public boolean waypointLabels = true;
+    public int waypointLabelMax = 16; // Labels drawn per frame, nearest first
+    public int waypointLabelDistance = 1024;
+    public int waypointLabelDetailDistance = 256; // Closer labels also show the distance
     public boolean deathWaypoint = true; // Feature requested
+    // Legacy global list; exported to waypoints/legacy.jsonl, which seeds every new world store, then emptied
     public List<Waypoint> waypoints = new ArrayList<>();
     
     // Editor
@@ -37,6 +58,7 @@ public class ModConfig {
     public int hudEditorGridSize = 5;
     
     public static class Waypoint {
+        public long id;
         public String name;
         public int x, y, z;
         public int color;
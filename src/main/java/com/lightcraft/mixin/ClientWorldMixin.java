@@ -0,0 +1,20 @@
+package com.lightcraft.mixin;
+import com.lightcraft.client.LightCraftClient;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientWorld.class)
+public class ClientWorldMixin {
+    // Called for every client-side block change after heightmaps are updated
+    @Inject(method = "scheduleBlockRerenderIfNeeded", at = @At("HEAD"), require = 0)
+    private void onBlockChanged(BlockPos pos, BlockState old, BlockState updated, CallbackInfo ci) {
+        if (LightCraftClient.getInstance() != null && LightCraftClient.getInstance().getChunkColumnCache() != null) {
+            LightCraftClient.getInstance().getChunkColumnCache().onBlockChanged((ClientWorld) (Object) this, pos);
+        }
+    }
+}
@@ -8,11 +8,23 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(MinecraftClient.class)
 public class MinecraftClientMixin {
+    @Inject(method = "render", at = @At("HEAD"))
+    private void onRender(boolean tick, CallbackInfo ci) {
+        if (LightCraftClient.getInstance() != null) LightCraftClient.getInstance().getFrameTimes().frameStart(System.nanoTime());
+    }
+
     @Inject(method = "close", at = @At("HEAD"))
     private void onClose(CallbackInfo ci) {
         if (LightCraftClient.getInstance() != null) {
-            LightCraftClient.getInstance().getConfigManager()
-                .saveConfigImmediate(LightCraftClient.getInstance().getConfig());
+            // Only writes if a debounced save is still pending
+            LightCraftClient.getInstance().getConfigManager().flush();
+            if (LightCraftClient.getInstance().getWaypointManager() != null) {
+                LightCraftClient.getInstance().getWaypointManager().close();
+                LightCraftClient.getInstance().getWaypointManager().flush();
+            }
+            if (LightCraftClient.getInstance().getMapTileStore() != null) {
+                LightCraftClient.getInstance().getMapTileStore().close(true);
+            }
         }
     }
 }
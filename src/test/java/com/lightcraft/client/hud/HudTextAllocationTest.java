@@ -0,0 +1,73 @@
+package com.lightcraft.client.hud;
+
+import com.lightcraft.client.perf.FrameTimeRecorder;
+import com.lightcraft.config.ModConfig;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** The steady-state HUD text paths must not allocate once their text is built. */
+class HudTextAllocationTest {
+    private static final int ITERATIONS = 100_000;
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void appendFixed1MatchesFormat() {
+        StringBuilder sb = new StringBuilder();
+        for (double v : new double[] { 0, 0.04, 0.05, -0.04, -0.05, 12.349, -12.35, 1e6 + 0.96 }) {
+            sb.setLength(0);
+            assertEquals(String.format(Locale.ROOT, "%.1f", v), HudText.appendFixed1(sb, v).toString());
+        }
+    }
+
+    @Test
+    void appendFixed1DoesNotAllocate() {
+        StringBuilder sb = new StringBuilder(64);
+        assertNoAllocation(i -> {
+            sb.setLength(0);
+            HudText.appendFixed1(sb, i * 0.37 - 5000);
+        });
+    }
+
+    @Test
+    void unchangedCoordsDoNotAllocate() {
+        CoordsHud hud = new CoordsHud(new ModConfig());
+        hud.updateCoords(-123.42, 64, 9876.5);
+        String text = hud.coordsText();
+        // Movement below the displayed precision keeps the text
+        assertNoAllocation(i -> hud.updateCoords(-123.42 + (i & 3) * 0.001, 64, 9876.5));
+        assertEquals("XYZ: -123.4 / 64.0 / 9876.5", text);
+        assertEquals(text, hud.coordsText());
+    }
+
+    @Test
+    void unchangedFpsDoNotAllocate() {
+        ModConfig config = new ModConfig();
+        config.fpsShowFrameStats = true;
+        FpsHud hud = new FpsHud(config, new FrameTimeRecorder(1024));
+        FrameTimeRecorder.Stats stats = new FrameTimeRecorder.Stats();
+        stats.frames = 300;
+        stats.avgNanos = 16_666_667;
+        stats.p99Nanos = 21_040_000;
+        stats.worstNanos = 33_400_000;
+        stats.onePercentLowFps = 47.5f;
+        hud.updateText(60, stats);
+        assertNoAllocation(i -> hud.updateText(60, stats));
+        assertEquals("60 FPS", hud.text());
+        assertEquals("avg 16.7ms  1% low 48  p99 21.0ms  max 33.4ms", hud.statsText());
+    }
+
+    private interface Step { void run(int i); }
+
+    private static void assertNoAllocation(Step step) {
+        // Warm up so class loading and compilation are not counted
+        for (int i = 0; i < ITERATIONS; i++) step.run(i);
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) step.run(i);
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+        assertEquals(0, allocated, "bytes allocated over " + ITERATIONS + " iterations");
+    }
+}
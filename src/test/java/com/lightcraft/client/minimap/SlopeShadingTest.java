@@ -0,0 +1,68 @@
+package com.lightcraft.client.minimap;
+
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class SlopeShadingTest {
+    private static final int NONE = SlopeShading.NONE;
+    // a=FF b=100 g=150 r=200
+    private static final int COLOR = 0xFF6496C8;
+
+    @Test
+    void scalarMatchesKnownValues() {
+        // Bordered 3x1 frame: row 0 holds the north neighbours, column 0 the west neighbour
+        int stride = 4;
+        int[] heights = {
+            NONE, 64, 64, 64,
+            64,   65, 64, NONE,
+        };
+        int[] colors = { COLOR, COLOR, COLOR };
+        SlopeShading.applyScalar(heights, stride, stride + 1, colors, 0, 3);
+        // +1 west, +1 north: factor 276
+        assertEquals(0xFF6BA1D7, colors[0]);
+        // -1 west, 0 north: factor 246
+        assertEquals(0xFF6090C0, colors[1]);
+        // Unknown height adds no slope
+        assertEquals(COLOR, colors[2]);
+    }
+
+    @Test
+    void shadeClampsSlopeAndKeepsAlpha() {
+        assertEquals(0x80FFFFFF, SlopeShading.shade(0x80FFFFFF, 100));
+        // Clamped to -8 blocks: factor 176
+        assertEquals(0x80AFAFAF, SlopeShading.shade(0x80FFFFFF, -100));
+        assertEquals(0x12345678, SlopeShading.shade(0x12345678, 0));
+    }
+
+    @Test
+    void vectorMatchesScalarBitForBit() {
+        SlopeShading.Kernel vector = SlopeShading.loadVector();
+        assertNotNull(vector, "tests run with --add-modules=jdk.incubator.vector");
+        int lanes = vector.lanes();
+        Random random = new Random(0x5105E);
+        for (int trial = 0; trial < 2000; trial++) {
+            // Counts around every multiple of the lane count, including pure tails
+            int count = random.nextInt(lanes * 5 + 3);
+            int stride = count + 1 + random.nextInt(9);
+            int origin = stride + 1 + random.nextInt(5);
+            int offset = random.nextInt(7);
+            int[] heights = new int[origin + count + 8];
+            for (int i = 0; i < heights.length; i++) {
+                // Mostly gentle terrain, some cliffs past the clamp, some unknown heights
+                int r = random.nextInt(10);
+                heights[i] = r < 2 ? NONE : r < 3 ? random.nextInt(384) - 64 : 64 + random.nextInt(7);
+            }
+            int[] expected = new int[offset + count + 8];
+            for (int i = 0; i < expected.length; i++) expected[i] = random.nextInt();
+            int[] actual = expected.clone();
+
+            SlopeShading.applyScalar(heights, stride, origin, expected, offset, count);
+            vector.apply(heights, stride, origin, actual, offset, count);
+            assertArrayEquals(expected, actual, "count " + count + " stride " + stride);
+        }
+    }
+}
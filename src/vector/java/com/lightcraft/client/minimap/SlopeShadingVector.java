@@ -0,0 +1,45 @@
+package com.lightcraft.client.minimap;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link SlopeShading} with the Vector API, one lane per pixel. Lives in its own source set, the
+ * only one compiled against the incubator module; {@link SlopeShading} loads it by name once it
+ * has seen the module, so main code never links against it.
+ */
+final class SlopeShadingVector implements SlopeShading.Kernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public int lanes() { return SPECIES.length(); }
+
+    @Override
+    public void apply(int[] heights, int stride, int origin, int[] colors, int offset, int count) {
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector h = IntVector.fromArray(SPECIES, heights, origin + i);
+            IntVector w = IntVector.fromArray(SPECIES, heights, origin + i - 1);
+            IntVector n = IntVector.fromArray(SPECIES, heights, origin + i - stride);
+            VectorMask<Integer> unknown = h.eq(SlopeShading.NONE);
+            IntVector slope = h.sub(w).blend(0, unknown.or(w.eq(SlopeShading.NONE)))
+                .add(h.sub(n).blend(0, unknown.or(n.eq(SlopeShading.NONE))));
+            IntVector factor = slope.max(-SlopeShading.MAX_SLOPE).min(SlopeShading.MAX_SLOPE)
+                .mul(SlopeShading.STEP).add(256);
+
+            IntVector c = IntVector.fromArray(SPECIES, colors, offset + i);
+            IntVector r = c.and(0xFF).mul(factor).lanewise(VectorOperators.LSHR, 8).min(255);
+            IntVector g = c.lanewise(VectorOperators.LSHR, 8).and(0xFF).mul(factor).lanewise(VectorOperators.LSHR, 8).min(255);
+            IntVector b = c.lanewise(VectorOperators.LSHR, 16).and(0xFF).mul(factor).lanewise(VectorOperators.LSHR, 8).min(255);
+            c.and(0xFF000000)
+                .or(b.lanewise(VectorOperators.LSHL, 16))
+                .or(g.lanewise(VectorOperators.LSHL, 8))
+                .or(r)
+                .intoArray(colors, offset + i);
+        }
+        SlopeShading.applyScalar(heights, stride, origin + i, colors, offset + i, count - i);
+    }
+}